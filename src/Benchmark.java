@@ -0,0 +1,337 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Benchmark - Throughput and allocation benchmarks for the Poker Squares engine and players.
+ *
+ * Each benchmark runs in its own JVM, forked with the class path and JVM options of the launching one, so that
+ * code compiled and profiled for one benchmark cannot affect another.  There it is warmed up and then run repeatedly
+ * for a fixed measurement time on the calling thread.  For each,
+ * the harness reports throughput, average time per operation, bytes allocated per operation (measured with the
+ * per-thread allocation counter of the HotSpot ThreadMXBean), and the number and total time of garbage collections
+ * during measurement.  Results are printed as a table and optionally written as JSON, so that a run can be compared
+ * against the baseline kept in benchmarks/baseline.json.
+ *
+ * Usage: java Benchmark [JSON output file] [benchmark name filter]
+ * (or mvn -B compile exec:exec@benchmark)
+ */
+public class Benchmark {
+
+	private static final long WARMUP_NANOS = 1000000000L; // warm-up time per benchmark
+	private static final long MEASURE_NANOS = 3000000000L; // measurement time per benchmark
+	private static final long MIN_BATCH_NANOS = 100000L; // minimum time of a batch of operations between clock checks
+	private static final int NUM_SAMPLES = 1024; // number of pregenerated hands and grids
+	private static final int SIZE = PokerSquares.SIZE; // number of rows/columns in square grid
+	private static final String FORK_OPTION = "-fork"; // option that runs a single named benchmark in this JVM
+	private static final String JSON_PREFIX = "JSON "; // prefix of the result line a forked JVM reports
+
+	/**
+	 * A benchmarked operation.  The returned value is accumulated so that the operation cannot be optimized away.
+	 */
+	interface Operation {
+		long run();
+	}
+
+	private final String name; // benchmark name
+	private final Operation operation; // benchmarked operation
+	private long ops; // operations measured
+	private long nanos; // measured time
+	private long bytes; // bytes allocated during measurement
+	private long gcCount; // garbage collections during measurement
+	private long gcMillis; // garbage collection time during measurement
+
+	private static long sink; // accumulates operation results
+
+	/**
+	 * Create a benchmark of the given operation.
+	 * @param name benchmark name
+	 * @param operation benchmarked operation
+	 */
+	public Benchmark(String name, Operation operation) {
+		this.name = name;
+		this.operation = operation;
+	}
+
+	/**
+	 * Warm up and measure this benchmark.
+	 */
+	public void run() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		// warm up, growing the batch size until a batch takes at least MIN_BATCH_NANOS
+		long batch = 1;
+		long end = System.nanoTime() + WARMUP_NANOS;
+		while (System.nanoTime() < end) {
+			long start = System.nanoTime();
+			for (long i = 0; i < batch; i++)
+				sink += operation.run();
+			if (System.nanoTime() - start < MIN_BATCH_NANOS)
+				batch *= 2;
+		}
+
+		// measure
+		long gcCountBefore = getGcCount(), gcMillisBefore = getGcMillis();
+		long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		end = start + MEASURE_NANOS;
+		long now = start;
+		ops = 0;
+		while (now < end) {
+			for (long i = 0; i < batch; i++)
+				sink += operation.run();
+			ops += batch;
+			now = System.nanoTime();
+		}
+		nanos = now - start;
+		bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+		gcCount = getGcCount() - gcCountBefore;
+		gcMillis = getGcMillis() - gcMillisBefore;
+	}
+
+	private static long getGcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			count += Math.max(0, gc.getCollectionCount());
+		return count;
+	}
+
+	private static long getGcMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			millis += Math.max(0, gc.getCollectionTime());
+		return millis;
+	}
+
+	/**
+	 * Return the measured throughput in operations per second.
+	 * @return the measured throughput in operations per second
+	 */
+	public double getOpsPerSecond() {
+		return ops * 1e9 / nanos;
+	}
+
+	/**
+	 * Return the measured bytes allocated per operation.
+	 * @return the measured bytes allocated per operation
+	 */
+	public double getBytesPerOp() {
+		return (double) bytes / ops;
+	}
+
+	/**
+	 * Return this benchmark's results as a JSON object.
+	 * @return this benchmark's results as a JSON object
+	 */
+	public String toJson() {
+		return String.format(Locale.ROOT,
+				"{\"benchmark\": \"%s\", \"ops\": %d, \"opsPerSecond\": %.3f, \"nanosPerOp\": %.3f, "
+				+ "\"gc.alloc.rate.norm\": %.3f, \"gc.count\": %d, \"gc.time\": %d}",
+				name, ops, getOpsPerSecond(), (double) nanos / ops, getBytesPerOp(), gcCount, gcMillis);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		return String.format(Locale.ROOT, "%-50s %15.1f ops/s %12.1f ns/op %12.1f B/op %4d GCs %6d ms",
+				name, getOpsPerSecond(), (double) nanos / ops, getBytesPerOp(), gcCount, gcMillis);
+	}
+
+	/**
+	 * Return the given number of random grids, each with a uniformly random number of cards placed.
+	 * @param random pseudorandom number generator
+	 * @param count number of grids
+	 * @param minCards minimum number of cards per grid
+	 * @return random grids
+	 */
+	private static Card[][][] randomGrids(Random random, int count, int minCards) {
+		Card[][][] grids = new Card[count][SIZE][SIZE];
+		List<Card> deck = new ArrayList<Card>();
+		Collections.addAll(deck, Card.getAllCards());
+		List<Integer> cells = new ArrayList<Integer>();
+		for (int cell = 0; cell < SIZE * SIZE; cell++)
+			cells.add(cell);
+		for (Card[][] grid : grids) {
+			Collections.shuffle(deck, random);
+			Collections.shuffle(cells, random);
+			int numCards = minCards + random.nextInt(SIZE * SIZE - minCards + 1);
+			for (int i = 0; i < numCards; i++)
+				grid[cells.get(i) / SIZE][cells.get(i) % SIZE] = deck.get(i);
+		}
+		return grids;
+	}
+
+	/**
+	 * Return a list of all benchmarks.
+	 * @return a list of all benchmarks
+	 */
+	public static List<Benchmark> getBenchmarks() {
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		final Random random = new Random(0);
+		final PokerSquaresPointSystem system = PokerSquaresPointSystem.getAmericanPointSystem();
+		final int mask = NUM_SAMPLES - 1;
+
+		// hand classification and scoring
+		final Card[][][] grids = randomGrids(random, NUM_SAMPLES, 0);
+		final Card[][] hands = new Card[NUM_SAMPLES][];
+		for (int i = 0; i < NUM_SAMPLES; i++)
+			hands[i] = grids[i][i % SIZE];
+		final int[] handScores = new int[2 * SIZE];
+		final int[] index = new int[1];
+		benchmarks.add(new Benchmark("PokerHand.getPokerHand", () -> PokerHand.getPokerHand(hands[index[0]++ & mask]).id));
+		benchmarks.add(new Benchmark("HandClassifier.getPokerHandId", () -> HandClassifier.getPokerHandId(hands[index[0]++ & mask])));
+		benchmarks.add(new Benchmark("PokerSquaresPointSystem.getScore", () -> system.getScore(grids[index[0]++ & mask])));
+		benchmarks.add(new Benchmark("PokerSquaresPointSystem.getHandScores", () -> system.getHandScores(grids[index[0]++ & mask])[0]));
+		benchmarks.add(new Benchmark("PokerSquaresPointSystem.getHandScores(buffer)", () -> system.getHandScores(grids[index[0]++ & mask], handScores)[0]));
+
+		// greedy Monte Carlo simulation from a mid-game position
+		for (final int depth : new int[] {2, 5}) {
+			final GreedyMCPlayer player = new GreedyMCPlayer(depth);
+			player.setPointSystem(system, 0);
+			player.init();
+			Card[] deck = Card.getAllCards();
+			for (int i = 0; i < 10; i++)
+				player.makePlay(deck[i * 5], i / SIZE, i % SIZE);
+			benchmarks.add(new Benchmark("GreedyMCPlayer.simGreedyPlay(depth=" + depth + ")", () -> player.simGreedyPlay(depth)));
+		}
+
+		// decision tree nodes on mid-game positions
+		final Card[][][] partialGrids = randomGrids(random, NUM_SAMPLES, 0);
+		for (Card[][] grid : partialGrids) // leave at least one empty cell
+			grid[random.nextInt(SIZE)][random.nextInt(SIZE)] = null;
+		final Card[] drawn = new Card[NUM_SAMPLES];
+		for (int i = 0; i < NUM_SAMPLES; i++)
+			drawn[i] = Card.getCard(random.nextInt(Card.NUM_CARDS));
+		String[] decisionTypes = {"leastCards", "mostCards", "mostSuit", "mostRank", "extendStraight", "placeLeft", "placeTop", "placeRandom"};
+		for (String decisionType : decisionTypes) { // nodes are seeded, so every run benchmarks the same ones
+			long seed = 0;
+			Decision found = new Decision(system, 0, seed);
+			while (!found.getLabel().startsWith(decisionType + ":"))
+				found = new Decision(system, 0, ++seed);
+			final Decision decision = found;
+			benchmarks.add(new Benchmark("Decision.evaluate(" + decisionType + ")", () -> {
+				int i = index[0]++ & mask;
+				return decision.evaluate(partialGrids[i], drawn[i])[0];
+			}));
+		}
+		final Rule rule = new Rule(system, 0, 0L);
+		rule.setLeft(new Decision(system, 1, 1L));
+		rule.setRight(new Decision(system, 2, 2L));
+		benchmarks.add(new Benchmark("Rule.evaluate", () -> {
+			int i = index[0]++ & mask;
+			return rule.evaluate(partialGrids[i], drawn[i])[0];
+		}));
+
+		// genetic programming
+		final ChromosomeFactory factory = new ChromosomeFactory(system, 0L);
+		factory.createChromosomes();
+		final Random mutationGenerator = new Random(0);
+		final Chromosome source = new Chromosome();
+		source.setPointSystem(system, 0);
+		source.createChromosome(mutationGenerator);
+		for (int i = 0; i < 20; i++)
+			source.mutate(mutationGenerator);
+		// mutate a fresh clone of the same tree each time, so that the tree does not grow over the run
+		// (includes the cost of ChromosomeFactory.cloneTree, benchmarked below)
+		benchmarks.add(new Benchmark("Chromosome.mutate", () -> {
+			Chromosome clone = new Chromosome();
+			clone.setPointSystem(system, 0);
+			clone.setHead(factory.cloneTree(clone, source.getHead()));
+			clone.mutate(mutationGenerator);
+			return clone.getHead().getID();
+		}));
+		benchmarks.add(new Benchmark("ChromosomeFactory.cloneTree", () -> {
+			Chromosome clone = new Chromosome();
+			clone.setPointSystem(system, 0);
+			return factory.cloneTree(clone, source.getHead()).getID();
+		}));
+		benchmarks.add(new Benchmark("ChromosomeFactory.assessFitness", () -> factory.assessFitness()[0][0]));
+
+		return benchmarks;
+	}
+
+	/**
+	 * Run the named benchmark in a newly forked JVM with the class path and JVM options of this one, printing its
+	 * output.
+	 * @param name benchmark name
+	 * @return the benchmark's results as a JSON object
+	 * @throws IOException if the JVM cannot be started or the benchmark fails
+	 */
+	private static String fork(String name) throws IOException {
+		List<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(Benchmark.class.getName());
+		command.add(FORK_OPTION);
+		command.add(name);
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		String json = null;
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.startsWith(JSON_PREFIX))
+					json = line.substring(JSON_PREFIX.length());
+				else
+					System.out.println(line);
+			}
+		}
+		try {
+			int exitCode = process.waitFor();
+			if (exitCode != 0 || json == null)
+				throw new IOException("Benchmark " + name + " failed with exit code " + exitCode);
+		} catch (InterruptedException e) {
+			process.destroy();
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while running benchmark " + name, e);
+		}
+		return json;
+	}
+
+	/**
+	 * Run all benchmarks (or those whose names contain the given filter), each in its own JVM, print results, and
+	 * optionally write them as JSON.
+	 * @param args optional JSON output file name, then optional benchmark name filter
+	 * @throws IOException if a benchmark fails or the JSON output file cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 2 && args[0].equals(FORK_OPTION)) { // forked: run one benchmark and report it
+			for (Benchmark benchmark : getBenchmarks())
+				if (benchmark.name.equals(args[1])) {
+					benchmark.run();
+					System.out.println(benchmark);
+					System.out.println(JSON_PREFIX + benchmark.toJson());
+				}
+			if (sink == 42) // keep results live
+				System.out.println();
+			return;
+		}
+		String outputFile = args.length > 0 ? args[0] : null;
+		String filter = args.length > 1 ? args[1] : "";
+		List<String> results = new ArrayList<String>();
+		for (Benchmark benchmark : getBenchmarks())
+			if (benchmark.name.contains(filter))
+				results.add(fork(benchmark.name));
+		if (outputFile != null) {
+			PrintWriter out = new PrintWriter(new FileWriter(outputFile));
+			out.println("[");
+			for (int i = 0; i < results.size(); i++)
+				out.println("  " + results.get(i) + (i < results.size() - 1 ? "," : ""));
+			out.println("]");
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,161 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * BinaryLogSink - A game event sink that appends one fixed-size binary record per game to a game log.
+ *
+ * A game log file starts with a HEADER_BYTES header (magic number and record size), followed by game records.
+ * Each record holds the game id (long), seed (long), point system id (int), number of moves (byte), then for each of
+ * the SIZE * SIZE move slots the card id (byte), cell (byte), and nanoseconds spent (long), and finally the game
+ * score (int).  Unused move slots of games ended early are zero-filled.  Logs are read by {@link GameLogReader}.
+ *
+ * Records are batched in a direct buffer and written with one channel write per batch, so logging costs the game loop
+ * little more than a few buffer puts per move.  Records are only guaranteed to be written once the sink is flushed or
+ * closed.
+ */
+public class BinaryLogSink implements GameEventSink, Closeable {
+
+	/**
+	 * the maximum number of moves per game
+	 */
+	public static final int NUM_MOVES = PokerSquares.SIZE * PokerSquares.SIZE;
+	/**
+	 * the number of bytes of each move
+	 */
+	public static final int MOVE_BYTES = 1 + 1 + 8;
+	/**
+	 * the number of bytes of each game record
+	 */
+	public static final int RECORD_BYTES = 8 + 8 + 4 + 1 + NUM_MOVES * MOVE_BYTES + 4;
+	/**
+	 * the number of bytes of the game log file header
+	 */
+	public static final int HEADER_BYTES = 8;
+	/**
+	 * the magic number starting each game log file
+	 */
+	public static final int MAGIC = 0x50534c47; // "PSLG"
+	private static final int BATCH_RECORDS = 256; // number of records written per channel write
+
+	private final WritableByteChannel channel; // log output
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BATCH_RECORDS * RECORD_BYTES); // batched records
+	private int recordStart; // buffer position of the current game record
+	private int completedEnd; // buffer position after the last completed game record
+	private int numMoves; // number of moves of the current game
+
+	/**
+	 * Create a binary log sink appending records to the given game log file, creating the file (with its header) if
+	 * it does not exist.  A nonempty existing file must be a game log with this record size and whole records only.
+	 * @param file game log file
+	 * @throws UncheckedIOException if the file cannot be opened or is not a compatible game log
+	 */
+	public BinaryLogSink(Path file) {
+		try {
+			if (Files.exists(file))
+				checkHeader(file);
+			FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND);
+			this.channel = fileChannel;
+			if (fileChannel.size() == 0) {
+				buffer.putInt(MAGIC).putInt(RECORD_BYTES);
+				completedEnd = HEADER_BYTES;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Check that the given existing file is empty or a game log with this record size holding whole records, so that
+	 * appended records line up with those already in it.
+	 * @param file existing game log file
+	 * @throws IOException if the file cannot be read or is not a compatible game log
+	 */
+	private static void checkHeader(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size == 0)
+				return;
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			while (header.hasRemaining() && channel.read(header) >= 0)
+				;
+			header.flip();
+			if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != RECORD_BYTES
+					|| (size - HEADER_BYTES) % RECORD_BYTES != 0)
+				throw new IOException("Not a game log with " + RECORD_BYTES + "-byte records: " + file);
+		}
+	}
+
+	/**
+	 * Create a binary log sink writing headerless records to the given channel.
+	 * @param channel log output
+	 */
+	public BinaryLogSink(WritableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	@Override
+	public void gameStarted(long gameId, long seed, int systemId, PokerSquaresPointSystem system) {
+		if (buffer.remaining() < RECORD_BYTES)
+			flush();
+		recordStart = buffer.position();
+		buffer.putLong(gameId).putLong(seed).putInt(systemId).put((byte) 0);
+		numMoves = 0;
+	}
+
+	@Override
+	public void cardPlayed(int cardId, int cell, long nanos) {
+		buffer.put((byte) cardId).put((byte) cell).putLong(nanos);
+		numMoves++;
+	}
+
+	@Override
+	public void gameEnded(int score) {
+		for (int i = numMoves * MOVE_BYTES; i < NUM_MOVES * MOVE_BYTES; i++)
+			buffer.put((byte) 0);
+		buffer.putInt(score);
+		buffer.put(recordStart + 8 + 8 + 4, (byte) numMoves);
+		completedEnd = buffer.position();
+	}
+
+	/**
+	 * Write all completed game records to the log.  The record of a game in progress stays buffered.
+	 * @throws UncheckedIOException if the log cannot be written
+	 */
+	public void flush() {
+		int end = buffer.position();
+		buffer.position(0);
+		buffer.limit(completedEnd);
+		try {
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		buffer.limit(end);
+		buffer.compact(); // keep the record of a game in progress
+		recordStart -= completedEnd;
+		completedEnd = 0;
+	}
+
+	/**
+	 * Write all completed game records to the log and close it.
+	 * @throws UncheckedIOException if the log cannot be written
+	 */
+	@Override
+	public void close() {
+		try {
+			flush();
+			channel.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * CheckpointFile - Atomic reading and writing of small binary checkpoint files.
+ *
+ * A checkpoint is written to a temporary file in the same directory, forced to disk, and renamed over the previous
+ * checkpoint, so a process killed at any point leaves either the previous or the new checkpoint, never a partial one.
+ * Each checkpoint starts with a magic number identifying its kind and a description of the run that wrote it; a
+ * checkpoint is only read back by a run with the same kind and description, so runs with different configurations
+ * never resume from each other's checkpoints.
+ */
+public class CheckpointFile {
+
+	/**
+	 * Write a checkpoint atomically.
+	 * @param file checkpoint file
+	 * @param magic magic number identifying the kind of checkpoint
+	 * @param description description of the run writing the checkpoint
+	 * @param contents checkpoint contents (after the magic number and description)
+	 * @throws UncheckedIOException if the checkpoint cannot be written
+	 */
+	public static void write(Path file, int magic, String description, byte[] contents) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(contents.length + 256);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(magic);
+			out.writeUTF(description);
+			out.write(contents);
+			out.flush();
+			Path dir = file.toAbsolutePath().getParent();
+			Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+			boolean moved = false;
+			try {
+				try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+					ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+					while (buffer.hasRemaining())
+						channel.write(buffer);
+					channel.force(true);
+				}
+				try {
+					Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+				}
+				moved = true;
+			} finally {
+				if (!moved) // do not leave the partial checkpoint behind
+					Files.deleteIfExists(temp);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Read the contents of a checkpoint written by a run of the same kind and description.
+	 * @param file checkpoint file
+	 * @param magic magic number identifying the kind of checkpoint
+	 * @param description description of the reading run
+	 * @return a stream of the checkpoint contents (after the magic number and description), or null if there is no
+	 * checkpoint of the given kind and description
+	 * @throws UncheckedIOException if an existing checkpoint cannot be read
+	 */
+	public static DataInputStream read(Path file, int magic, String description) {
+		if (!Files.exists(file))
+			return null;
+		try {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)));
+			if (in.readInt() != magic || !in.readUTF().equals(description))
+				return null;
+			return in;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
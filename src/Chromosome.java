@@ -1,9 +1,14 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.lang.NullPointerException;
 
 public class Chromosome implements PokerSquaresPlayer {
 
+    static final int RULE = 0; // node type tag of rules in written trees
+    static final int DECISION = 1; // node type tag of decisions in written trees
     private final int SIZE = 5; // grid dimension
     private final int DEPTH_LIMIT = 6;
     private Card[][] grid = new Card[SIZE][SIZE]; // Card grid
@@ -44,12 +49,21 @@ public class Chromosome implements PokerSquaresPlayer {
      * Creates a beginning tree with three nodes for this tree.
      */
     public void createChromosome() {
+        createChromosome(randomGenerator);
+    }
+
+    /**
+     * Creates a beginning tree with three nodes for this tree, seeding the
+     * nodes from the given random number generator.
+     * @param randomGenerator random number generator for the new nodes
+     */
+    public void createChromosome(Random randomGenerator) {
         int id1 = createID();
         int id2 = createID();
         int id3 = createID();
-        Node gene = new Rule(system, id1);
-        Node left = new Decision(system, id2);
-        Node right = new Decision(system, id3);
+        Node gene = new Rule(system, id1, randomGenerator.nextLong());
+        Node left = new Decision(system, id2, randomGenerator.nextLong());
+        Node right = new Decision(system, id3, randomGenerator.nextLong());
         this.addID(gene);
         this.addID(left);
         this.addID(right);
@@ -79,12 +93,22 @@ public class Chromosome implements PokerSquaresPlayer {
      * Mutates a random node in this chromosome.
      */
     public void mutate() {
+        mutate(randomGenerator);
+    }
+
+    /**
+     * Mutates a random node in this chromosome, drawing the node, the
+     * kind of mutation and the seeds of new nodes from the given random
+     * number generator.
+     * @param randomGenerator random number generator for mutation
+     */
+    public void mutate(Random randomGenerator) {
         int index = randomGenerator.nextInt(this.identifiers.size());
         Integer selectedID = this.identifiers.get(index);
         Node node = findNode(this.getHead(), selectedID);
         if (node instanceof Rule) {
             if (node.getParent() == null) {
-                Node mutation = new Rule(system, createID());
+                Node mutation = new Rule(system, createID(), randomGenerator.nextLong());
                 this.addID(mutation);
                 mutation.setLeft(node.getLeftChild());
                 mutation.setRight(node.getRightChild());
@@ -92,7 +116,7 @@ public class Chromosome implements PokerSquaresPlayer {
                 this.removeID(node);
                 node = null;
             } else {
-                Node mutation = new Rule(system, createID());
+                Node mutation = new Rule(system, createID(), randomGenerator.nextLong());
                 this.addID(mutation);
                 mutation.setLeft(node.getLeftChild());
                 mutation.setRight(node.getRightChild());
@@ -112,16 +136,16 @@ public class Chromosome implements PokerSquaresPlayer {
                 if (getDepth(node, node.getID()) == DEPTH_LIMIT) {
                     // if at the depth limit, don't increase depth
                     // make a decision instead
-                    Node mutation = new Decision(system, createID());
+                    Node mutation = new Decision(system, createID(), randomGenerator.nextLong());
                     this.addID(mutation);
                     mutation.setParent(node.getParent());
                     this.removeID(node);
                     node = null;
                 } else {
                     // else, create the rule, increase depth.
-                    Node mutation = new Rule(system, createID());
-                    Node mutationLeft = new Decision(system, createID());
-                    Node mutationRight = new Decision(system, createID());
+                    Node mutation = new Rule(system, createID(), randomGenerator.nextLong());
+                    Node mutationLeft = new Decision(system, createID(), randomGenerator.nextLong());
+                    Node mutationRight = new Decision(system, createID(), randomGenerator.nextLong());
                     this.addID(mutationLeft);
                     this.addID(mutationRight);
                     this.addID(mutation);
@@ -138,7 +162,7 @@ public class Chromosome implements PokerSquaresPlayer {
                 }
             } else {
                 // randomly chose to make a decision
-                Node mutation = new Decision(system, createID());
+                Node mutation = new Decision(system, createID(), randomGenerator.nextLong());
                 this.addID(mutation);
                 mutation.setParent(node.getParent());
                 if (node.getParent().getLeftChild().getID().equals(node.getID())) {
@@ -166,7 +190,7 @@ public class Chromosome implements PokerSquaresPlayer {
         a.addLast(node);
         while (!a.isEmpty()) {
             Node t = a.removeFirst();
-            if (t.getID() == id) {
+            if (t.getID().equals(id)) {
                 return t;
             }
             if (t.getRightChild() != null) {
@@ -225,6 +249,80 @@ public class Chromosome implements PokerSquaresPlayer {
     }
 
 
+    /**
+     * Makes sure ids created from now on are greater than the given id
+     * (e.g. one read from a checkpoint).
+     * @param id id number in use
+     */
+    public static void reserveID(int id) {
+        idGenerator.accumulateAndGet(id + 1, Math::max);
+    }
+
+
+    /**
+     * Writes the tree of this chromosome, then its node ids in the order
+     * mutate draws from, so that a chromosome read back mutates the same
+     * nodes.
+     * @param out stream to write to
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        headNode.writeTo(out);
+        out.writeInt(identifiers.size());
+        for (Integer id : identifiers) {
+            out.writeInt(id);
+        }
+    }
+
+
+    /**
+     * Reads a chromosome written by writeTo.
+     * @param in stream to read from
+     * @param system point system of the chromosome
+     * @return Chromosome object with the tree and node ids read
+     */
+    public static Chromosome readFrom(DataInputStream in, PokerSquaresPointSystem system) throws IOException {
+        Chromosome chromosome = new Chromosome();
+        chromosome.setPointSystem(system, 0);
+        chromosome.setHead(readTree(in, system));
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            int id = in.readInt();
+            reserveID(id);
+            chromosome.identifiers.add(id);
+        }
+        return chromosome;
+    }
+
+
+    /**
+     * Reads a tree written in preorder by Node.writeTo.
+     * @param in stream to read from
+     * @param system point system of the nodes
+     * @return Node object representing the root of the tree
+     */
+    static Node readTree(DataInputStream in, PokerSquaresPointSystem system) throws IOException {
+        int type = in.readByte();
+        int id = in.readInt();
+        reserveID(id);
+        Node node;
+        if (type == RULE) {
+            boolean row = in.readBoolean();
+            int rc = in.readByte();
+            String ruleType = in.readUTF();
+            node = new Rule(system, id, row, rc, ruleType, in.readLong());
+            node.setLeft(readTree(in, system));
+            node.setRight(readTree(in, system));
+        } else if (type == DECISION) {
+            boolean rc = in.readBoolean();
+            String decisionType = in.readUTF();
+            node = new Decision(system, id, rc, decisionType, in.readLong());
+        } else {
+            throw new IOException("Invalid node type: " + type);
+        }
+        return node;
+    }
+
+
     /**
      * Adds an id number to the Chromosome instance.
      * @param Node node: the node from which to take the id
@@ -1,12 +1,25 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 
 public class ChromosomeFactory {
 
+    private static final int CHECKPOINT_MAGIC = 0x50534743; // "PSGC"
     private final int LENGTH = 300;
     private final int NON_SURVIVORS = 50;
     private ArrayList<Chromosome> genePool;
     private PokerSquaresPointSystem system;
     private Random randomGenerator = new Random();
+    private Random mutationGenerator = new Random(); // random number generator for mutation of this factory's chromosomes
+    private int[][] fitnesses = new int[0][]; // fitness and index of each tree at the last selection, best first
 
 
 
@@ -16,6 +29,19 @@ public class ChromosomeFactory {
     }
 
 
+    /**
+     * Creates a factory whose random number generators are seeded from the
+     * given seed, so that its evolution can be reproduced.
+     * @param seed seed of the random number generators
+     */
+    public ChromosomeFactory(PokerSquaresPointSystem system, long seed) {
+        this(system);
+        Random seeds = new Random(seed);
+        randomGenerator = new Random(seeds.nextLong());
+        mutationGenerator = new Random(seeds.nextLong());
+    }
+
+
     /**
      * Creates a set of beginning rules for the decision trees.
      *
@@ -24,7 +50,7 @@ public class ChromosomeFactory {
         for (int i = 0; i < LENGTH; i++) {
             Chromosome newChromosome = new Chromosome();
             newChromosome.setPointSystem(system, 0);
-            newChromosome.createChromosome();
+            newChromosome.createChromosome(mutationGenerator);
             genePool.add(newChromosome);
         }
     }
@@ -48,12 +74,13 @@ public class ChromosomeFactory {
      * Runs 50-100 (?) games and averages to determine the
      * fitness of each tree.
      */
-    private int[][] assessFitness() {
+    int[][] assessFitness() {
         int[][] fitnesses = new int[LENGTH][2];
         for (int i = 0; i < LENGTH; i++) {
             Chromosome chromosome = genePool.get(i);
-            FakePokerSquares evaluator = new FakePokerSquares(chromosome, system);
-            int[] scores = evaluator.playSequence(50,0,false);
+            GameRunner evaluator = new GameRunner(chromosome, system);
+            evaluator.setTimed(false);
+            int[] scores = evaluator.playSequence(50, 0);
             fitnesses[i][0] = average(scores);
             fitnesses[i][1] = i;
         }
@@ -65,7 +92,7 @@ public class ChromosomeFactory {
      * Determines which chromosomes move to the next generation.
      */
     public Chromosome selectNextGeneration() {
-        int[][] fitnesses = assessFitness();
+        fitnesses = assessFitness();
         Arrays.sort(fitnesses, new Comparator<int[]>() {
             public int compare(int[] a, int[] b) {
                 return Integer.compare(b[0], a[0]);
@@ -87,8 +114,8 @@ public class ChromosomeFactory {
 
                 clone.setHead(replacement);
 
-                clone.mutate();
-                clone.mutate();
+                clone.mutate(mutationGenerator);
+                clone.mutate(mutationGenerator);
 
                 genePool.set(replaceInd, clone);
             }
@@ -137,7 +164,7 @@ public class ChromosomeFactory {
         for (int i = 0; i < LENGTH; i++) {
             mutation = randomGenerator.nextFloat();
             if (mutation <= .7) {
-                genePool.get(i).mutate();
+                genePool.get(i).mutate(mutationGenerator);
             }
         }
     }
@@ -148,12 +175,115 @@ public class ChromosomeFactory {
      *
      */
     public void crossOver() {
-        Collections.shuffle(genePool);
+        Collections.shuffle(genePool, randomGenerator);
         for (int i = 0; i < LENGTH; i += 2) {
             breedChromosome(genePool.get(i), genePool.get(i+1));
         }
     }
 
+    /**
+     * Writes a checkpoint of the population trees and the state of the
+     * random number generators, with the number of generations completed.
+     * Fitness values are not written: those of the last selection describe
+     * the population before replacement, mutation and crossover, and the
+     * next selection assesses the checkpointed population anew.  The
+     * checkpoint is replaced atomically, so an interrupted write leaves the
+     * previous checkpoint.
+     * @param file checkpoint file
+     * @param generations number of generations completed
+     */
+    public void writeCheckpoint(Path file, int generations) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(generations);
+            writeRandom(out, randomGenerator);
+            writeRandom(out, mutationGenerator);
+            out.writeInt(genePool.size());
+            for (Chromosome chromosome : genePool)
+                chromosome.writeTo(out);
+            out.flush();
+            CheckpointFile.write(file, CHECKPOINT_MAGIC, getCheckpointDescription(), bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    /**
+     * Restores the population and random number generators from a
+     * checkpoint written for the same point system.  Fitness values are
+     * empty until the next selection.
+     * @param file checkpoint file
+     * @return the number of generations completed, or 0 if there is no
+     * checkpoint for this point system (leaving the factory unchanged)
+     */
+    public int readCheckpoint(Path file) {
+        DataInputStream in = CheckpointFile.read(file, CHECKPOINT_MAGIC, getCheckpointDescription());
+        if (in == null)
+            return 0;
+        try {
+            int generations = in.readInt();
+            randomGenerator = readRandom(in);
+            mutationGenerator = readRandom(in);
+            fitnesses = new int[0][];
+            int size = in.readInt();
+            genePool = new ArrayList<Chromosome>(LENGTH);
+            for (int i = 0; i < size; i++)
+                genePool.add(Chromosome.readFrom(in, system));
+            return generations;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    /**
+     * Returns the fitness and index of each tree at the last selection made
+     * by this factory (empty before the first).  Indices refer to the
+     * population as it was selected from.
+     * @return array of {fitness, index} pairs, best first
+     */
+    public int[][] getFitnesses() {
+        return fitnesses;
+    }
+
+
+    /**
+     * Describes the run configuration that checkpoints must match.
+     */
+    private String getCheckpointDescription() {
+        return "version=3;length=" + LENGTH + ";system=" + Arrays.toString(system.getScoreTable());
+    }
+
+
+    /**
+     * Writes the exact state of a random number generator.
+     */
+    private static void writeRandom(DataOutputStream out, Random random) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+            objects.writeObject(random);
+        }
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+
+    /**
+     * Reads a random number generator written by writeRandom.
+     */
+    private static Random readRandom(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Random) objects.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+
     /**
      * Perform crossover between two individuals.
      *
@@ -163,4 +293,75 @@ public class ChromosomeFactory {
     }
 
 
+    /**
+     * Describes the fitness values of the last selection and the trees of
+     * the population (labels in preorder), independently of node ids.
+     */
+    private String describePopulation() {
+        StringBuilder sb = new StringBuilder(Arrays.deepToString(fitnesses));
+        for (Chromosome chromosome : genePool) {
+            sb.append('\n');
+            describeTree(chromosome.getHead(), sb);
+        }
+        return sb.toString();
+    }
+
+
+    private static void describeTree(Node node, StringBuilder sb) {
+        sb.append('(').append(node.getLabel());
+        if (node.getLeftChild() != null) describeTree(node.getLeftChild(), sb);
+        if (node.getRightChild() != null) describeTree(node.getRightChild(), sb);
+        sb.append(')');
+    }
+
+
+    /**
+     * Checks that an evolution checkpointed and resumed by a new factory
+     * selects, mutates and evaluates exactly as the same evolution run
+     * straight through, comparing the population after each generation
+     * following the checkpoint.
+     */
+    public static void main(String[] args) throws IOException {
+        final int GENERATIONS = 5;
+        final int CHECKPOINTED = 2; // generation after which the checkpoint is written
+        PokerSquaresPointSystem system = PokerSquaresPointSystem.getAmericanPointSystem();
+        Path checkpoint = Files.createTempFile("ChromosomeFactory", ".checkpoint");
+        try {
+            List<String> straight = new ArrayList<String>();
+            ChromosomeFactory factory = new ChromosomeFactory(system, 0L);
+            factory.createChromosomes();
+            for (int generation = 1; generation <= GENERATIONS; generation++) {
+                factory.selectNextGeneration();
+                factory.mutateAll();
+                factory.crossOver();
+                if (generation == CHECKPOINTED) factory.writeCheckpoint(checkpoint, generation);
+                if (generation > CHECKPOINTED) straight.add(factory.describePopulation());
+            }
+
+            List<String> resumed = new ArrayList<String>();
+            factory = new ChromosomeFactory(system, 1L); // generators are restored from the checkpoint
+            for (int generation = factory.readCheckpoint(checkpoint) + 1; generation <= GENERATIONS; generation++) {
+                factory.selectNextGeneration();
+                factory.mutateAll();
+                factory.crossOver();
+                resumed.add(factory.describePopulation());
+            }
+
+            int mismatches = 0;
+            for (int i = 0; i < Math.max(straight.size(), resumed.size()); i++) {
+                if (i >= straight.size() || i >= resumed.size() || !straight.get(i).equals(resumed.get(i))) {
+                    System.out.println("Mismatch after generation " + (CHECKPOINTED + 1 + i));
+                    mismatches++;
+                }
+            }
+            System.out.println("Generations compared after resuming: " + straight.size() + ", mismatches: " + mismatches);
+            if (mismatches > 0) {
+                throw new IllegalStateException(mismatches + " resumed generations differ from the straight run");
+            }
+        } finally {
+            Files.deleteIfExists(checkpoint);
+        }
+    }
+
+
 }
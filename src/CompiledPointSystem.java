@@ -0,0 +1,135 @@
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CompiledPointSystem - A scoring kernel specialized to one Poker Squares point system.
+ *
+ * The score table of the point system is folded into the {@link HandClassifier} rank table, so that the score of a
+ * line maps directly from its rank and suit key sums to points with a single byte lookup, skipping the intermediate
+ * Poker hand classification.  Compiled point systems are immutable, may be shared freely across threads, and are
+ * cached by score vector, so every player and game using the same point system shares one kernel.  The cache holds
+ * kernels weakly: a kernel is kept while any point system or player refers to it, and its entry is removed once it has
+ * been collected, so tournaments over many random point systems do not accumulate kernels.
+ */
+public final class CompiledPointSystem {
+
+	private static final ConcurrentHashMap<List<Integer>, CacheEntry> cache =
+			new ConcurrentHashMap<List<Integer>, CacheEntry>(); // weakly held compiled point systems by score vector
+	private static final ReferenceQueue<CompiledPointSystem> collected =
+			new ReferenceQueue<CompiledPointSystem>(); // cache entries whose compiled point systems were collected
+
+	/**
+	 * A weak reference to a cached compiled point system that remembers its key, so that its entry can be removed
+	 * once it has been collected.
+	 */
+	private static final class CacheEntry extends WeakReference<CompiledPointSystem> {
+		final List<Integer> key; // score vector of the compiled point system
+
+		CacheEntry(List<Integer> key, CompiledPointSystem compiled) {
+			super(compiled, collected);
+			this.key = key;
+		}
+	}
+
+	private final int[] scores; // scores for each corresponding hand classification id number
+	private final byte[] lineScores; // line scores indexed by rank key sum * 2 + 1 if flush, 0 otherwise
+
+	/**
+	 * Compile the given score table.
+	 * @param scores scores for each hand classification id number, each in the range of a byte
+	 */
+	private CompiledPointSystem(int[] scores) {
+		this.scores = scores;
+		int size = HandClassifier.getRankTableSize();
+		lineScores = new byte[2 * size];
+		for (int rankKey = 0; rankKey < size; rankKey++) {
+			lineScores[2 * rankKey] = (byte) scores[HandClassifier.getRankClass(rankKey)];
+			lineScores[2 * rankKey + 1] = (byte) scores[HandClassifier.getFlushClass(rankKey)];
+		}
+	}
+
+	/**
+	 * Return the compiled form of the given point system, compiling it only if no point system with the same
+	 * score table has been compiled before.
+	 * @param system point system
+	 * @return the shared compiled form of the given point system
+	 */
+	public static CompiledPointSystem forPointSystem(PokerSquaresPointSystem system) {
+		int[] scores = system.getScoreTable();
+		List<Integer> key = new ArrayList<Integer>(scores.length);
+		for (int score : scores)
+			key.add(score);
+		for (Object entry = collected.poll(); entry != null; entry = collected.poll()) // remove collected entries
+			cache.remove(((CacheEntry) entry).key, entry);
+		final CompiledPointSystem[] compiled = new CompiledPointSystem[1]; // held strongly until returned
+		cache.compute(key, (k, entry) -> {
+			compiled[0] = entry == null ? null : entry.get();
+			if (compiled[0] != null)
+				return entry;
+			compiled[0] = new CompiledPointSystem(scores);
+			return new CacheEntry(k, compiled[0]);
+		});
+		return compiled[0];
+	}
+
+	/**
+	 * Get the score of a line given the {@link HandClassifier} rank and suit key sums of its cards.
+	 * @param rankKey sum of the rank keys of the cards of the line
+	 * @param suitKey sum of the suit keys of the cards of the line
+	 * @return score of the line
+	 */
+	public int getLineScore(int rankKey, int suitKey) {
+		return lineScores[rankKey << 1 | (HandClassifier.isFlush(suitKey) ? 1 : 0)];
+	}
+
+	/**
+	 * Get the score of a line with the given rank key sum that is not a flush.
+	 * @param rankKey sum of the rank keys of the cards of the line
+	 * @return score of a line with the given ranks that is not a flush
+	 */
+	public int getRankScore(int rankKey) {
+		return lineScores[rankKey << 1];
+	}
+
+	/**
+	 * Get the score of a five-card line with the given rank key sum that is a flush.
+	 * @param rankKey sum of the rank keys of the cards of the line
+	 * @return score of a flush with the given ranks
+	 */
+	public int getFlushScore(int rankKey) {
+		return lineScores[rankKey << 1 | 1];
+	}
+
+	/**
+	 * Get the score of the given line of the given grid state.
+	 * @param state grid state
+	 * @param line line index (rows 0 through 4, then columns 0 through 4)
+	 * @return score of the given line
+	 */
+	public int getLineScore(GridState state, int line) {
+		return getLineScore(state.getRankKey(line), state.getSuitCounts(line));
+	}
+
+	/**
+	 * Get the score of the given grid state.
+	 * @param state grid state
+	 * @return score of the given grid state
+	 */
+	public int getScore(GridState state) {
+		int totalScore = 0;
+		for (int line = 0; line < GridState.NUM_LINES; line++)
+			totalScore += getLineScore(state.getRankKey(line), state.getSuitCounts(line));
+		return totalScore;
+	}
+
+	/**
+	 * Return an array of scores indexed by Poker hand classification identification numbers.
+	 * @return an array of scores indexed by Poker hand classification identification numbers
+	 */
+	public int[] getScoreTable() {
+		return scores.clone();
+	}
+}
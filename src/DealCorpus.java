@@ -0,0 +1,184 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * DealCorpus - A precomputed, memory-mapped file of Poker Squares deals.
+ *
+ * A corpus file holds a HEADER_BYTES header (magic number, deal size, and the seed of the first deal), followed by
+ * the deals of successive seeds, each DEAL_BYTES card identification numbers of one byte each in deal order.  The
+ * deal of each seed is the deal {@link GameRunner} makes for that seed, so games played from a corpus are identical to
+ * those played by a GameRunner without one, but skip shuffling.
+ *
+ * The reader maps the file read-only, so deals are read in place without copying, and a corpus may be shared by all
+ * threads of a process and by all processes on a machine.  Games of seeds outside the corpus cannot be played from it.
+ *
+ * To generate a corpus: java DealCorpus &lt;file&gt; &lt;number of deals&gt; [&lt;first seed&gt;]
+ */
+public class DealCorpus {
+
+	/**
+	 * the number of bytes (cards) of each deal
+	 */
+	public static final int DEAL_BYTES = PokerSquares.SIZE * PokerSquares.SIZE;
+	/**
+	 * the number of bytes of the file header
+	 */
+	public static final int HEADER_BYTES = 16;
+	private static final int MAGIC = 0x50534443; // "PSDC"
+	private static final int DEALS_PER_SEGMENT = 1 << 24; // number of deals in each mapped segment (400 MiB)
+
+	private final Path file; // deal corpus file
+	private final long startSeed; // seed of the first deal
+	private final long numDeals; // number of deals
+	private final MappedByteBuffer[] segments; // mapped deals, DEALS_PER_SEGMENT per segment
+
+	/**
+	 * Memory-map the deal corpus of the given file.
+	 * @param file deal corpus file
+	 * @throws UncheckedIOException if the file cannot be read or is not a deal corpus
+	 */
+	public DealCorpus(Path file) {
+		this.file = file;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			while (header.hasRemaining() && channel.read(header) >= 0)
+				;
+			header.flip();
+			if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != DEAL_BYTES)
+				throw new IOException("Not a deal corpus: " + file);
+			startSeed = header.getLong();
+			numDeals = (channel.size() - HEADER_BYTES) / DEAL_BYTES;
+			segments = new MappedByteBuffer[(int) ((numDeals + DEALS_PER_SEGMENT - 1) / DEALS_PER_SEGMENT)];
+			for (int i = 0; i < segments.length; i++) {
+				long firstDeal = (long) i * DEALS_PER_SEGMENT;
+				long segmentDeals = Math.min(DEALS_PER_SEGMENT, numDeals - firstDeal);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + firstDeal * DEAL_BYTES,
+						segmentDeals * DEAL_BYTES);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Write a deal corpus file of the deals of the given number of successive seeds.
+	 * @param file deal corpus file
+	 * @param numDeals number of deals
+	 * @param startSeed seed of the first deal
+	 * @throws UncheckedIOException if the file cannot be written
+	 */
+	public static void write(Path file, long numDeals, long startSeed) {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(HEADER_BYTES + 40000 * DEAL_BYTES);
+			buffer.putInt(MAGIC).putInt(DEAL_BYTES).putLong(startSeed);
+			FastRandom random = new FastRandom(0L);
+			int[] deck = new int[Card.NUM_CARDS];
+			for (long i = 0; i < numDeals; i++) {
+				GameRunner.deal(random, startSeed + i, deck);
+				for (int j = 0; j < DEAL_BYTES; j++)
+					buffer.put((byte) deck[j]);
+				if (buffer.remaining() < DEAL_BYTES)
+					flush(buffer, channel);
+			}
+			flush(buffer, channel);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Write the contents of the buffer to the channel and clear the buffer.
+	 * @param buffer buffer being filled
+	 * @param channel output channel
+	 * @throws IOException if the channel cannot be written
+	 */
+	private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Return the deal corpus file, so that other processes can map the same corpus.
+	 * @return the deal corpus file
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Return the seed of the first deal.
+	 * @return the seed of the first deal
+	 */
+	public long getStartSeed() {
+		return startSeed;
+	}
+
+	/**
+	 * Return the number of deals.
+	 * @return the number of deals
+	 */
+	public long getNumDeals() {
+		return numDeals;
+	}
+
+	/**
+	 * Return whether or not the corpus holds the deal of the given seed.
+	 * @param seed seed of a deal
+	 * @return whether or not the corpus holds the deal of the given seed
+	 */
+	public boolean contains(long seed) {
+		return seed - startSeed >= 0 && seed - startSeed < numDeals;
+	}
+
+	/**
+	 * Return the identification number of the ith card dealt for the given seed.
+	 * @param seed seed of a deal held by the corpus
+	 * @param i index of the card in the deal, in [0, DEAL_BYTES)
+	 * @return the identification number of the card
+	 */
+	public int getCardId(long seed, int i) {
+		long deal = seed - startSeed;
+		return segments[(int) (deal / DEALS_PER_SEGMENT)].get((int) (deal % DEALS_PER_SEGMENT) * DEAL_BYTES + i);
+	}
+
+	/**
+	 * Copy the card identification numbers of the deal of the given seed into the given array.
+	 * @param seed seed of a deal held by the corpus
+	 * @param cardIds array of at least DEAL_BYTES card identification numbers to fill in deal order
+	 * @throws IllegalArgumentException if the corpus does not hold the deal of the given seed
+	 */
+	public void getDeal(long seed, int[] cardIds) {
+		if (!contains(seed))
+			throw new IllegalArgumentException("Seed " + seed + " is not in the deal corpus");
+		long deal = seed - startSeed;
+		MappedByteBuffer segment = segments[(int) (deal / DEALS_PER_SEGMENT)];
+		int index = (int) (deal % DEALS_PER_SEGMENT) * DEAL_BYTES;
+		for (int i = 0; i < DEAL_BYTES; i++)
+			cardIds[i] = segment.get(index + i);
+	}
+
+	/**
+	 * Generate a deal corpus file.
+	 * @param args file, number of deals, and optional seed of the first deal (default 0)
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: java DealCorpus <file> <number of deals> [<first seed>]");
+			System.exit(1);
+		}
+		long numDeals = Long.parseLong(args[1]);
+		long startSeed = args.length > 2 ? Long.parseLong(args[2]) : 0L;
+		long start = System.nanoTime();
+		write(Paths.get(args[0]), numDeals, startSeed);
+		System.out.printf("Wrote %d deals from seed %d in %.2f s\n", numDeals, startSeed, (System.nanoTime() - start) / 1e9);
+	}
+}
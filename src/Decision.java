@@ -1,4 +1,6 @@
-import java.util.Random;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.lang.String;
 import java.util.function.Predicate;
 import java.util.List;
@@ -20,13 +22,24 @@ public class Decision implements Node {
      */
     private final String decisionType;
     private final int HAND_SIZE = 5;
-    private final Random randomGenerator = new Random();
+    private FastRandom randomGenerator; // for construction and ties; each clone continues its own copy
     private final PokerSquaresPointSystem system;
     private final Integer id;
     private Node parent;
 
 
     public Decision(PokerSquaresPointSystem system, Integer id) {
+        this(system, id, ThreadLocalRandom.current().nextLong());
+    }
+
+
+    /**
+     * Creates a random decision drawing from a generator with the given
+     * seed, so that a seeded evolution creates the same decisions.
+     * @param seed seed of the decision's random number generator
+     */
+    Decision(PokerSquaresPointSystem system, Integer id, long seed) {
+        this.randomGenerator = new FastRandom(seed);
         this.rc = randomGenerator.nextBoolean();
         this.decisionType = decideLabel();
         this.system = system;
@@ -34,6 +47,21 @@ public class Decision implements Node {
     }
 
 
+    /**
+     * Recreates a decision with the given properties (e.g. read from a checkpoint).
+     * @param rc whether the decision considers rows (true) or columns (false)
+     * @param decisionType the type of this decision (see decideLabel)
+     * @param seed state of the decision's random number generator
+     */
+    Decision(PokerSquaresPointSystem system, Integer id, boolean rc, String decisionType, long seed) {
+        this.randomGenerator = new FastRandom(seed);
+        this.rc = rc;
+        this.decisionType = decisionType;
+        this.system = system;
+        this.id = id;
+    }
+
+
     /**
      * @return A String that determines the type of this decision.
      */
@@ -464,10 +492,24 @@ public class Decision implements Node {
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeByte(Chromosome.DECISION);
+        out.writeInt(id);
+        out.writeBoolean(rc);
+        out.writeUTF(decisionType);
+        out.writeLong(randomGenerator.getSeed());
+    }
+
+
     /**
      * {@inheritDoc}
      */
     public Object clone() throws CloneNotSupportedException {
-        return super.clone();
+        Decision clone = (Decision) super.clone();
+        clone.randomGenerator = new FastRandom(randomGenerator.getSeed());
+        return clone;
     }
 }
@@ -0,0 +1,320 @@
+import java.util.Arrays;
+
+/**
+ * EndgameSolver - An exact expectimax solver for the final placements of a game.
+ *
+ * The solver computes the expected final score of a position by enumerating every undealt card at each draw and every
+ * empty cell at each placement, placing each card with a {@link ScoreTracker} so that only the row and column of each
+ * placement are rescored.  Expected scores of positions after a placement are memoized by Zobrist hash (see
+ * {@link GridState#getHash()}), which is the same for every placement order of the same grid, so transpositions are
+ * solved once.  Memoized values are exact, so they are kept across the moves of a game until clear() is called.
+ * Keys are not canonicalized by symmetry (see {@link StateCanonicalizer}): all positions of one endgame share the 20
+ * or more cards already placed, which no nontrivial symmetry maps onto another reachable arrangement, so canonical keys
+ * merge no positions while costing several times the solve of a position.
+ *
+ * The solver measures the time of each solve that starts from an empty memo, by number of empty cells, and estimates
+ * unmeasured solves from smaller ones, so players can hand over to it once its cost fits the time of a move:
+ * <pre>
+ * if (solver.getEstimatedNanos(numEmpty) &lt;= budget.getMoveNanos() / 2) // leave time for a fallback
+ *     cell = solver.getBestPlay(state, cardId, budget.getSliceDeadline(0, 2)); // -1 if the deadline passes first
+ * </pre>
+ */
+public class EndgameSolver {
+
+	/**
+	 * the default maximum number of empty cells of positions players solve
+	 */
+	public static final int DEFAULT_MAX_EMPTY = 5;
+	private static final int NUM_CELLS = GridState.NUM_CELLS; // number of cells in square grid
+	private static final int NUM_CARDS = Card.NUM_CARDS; // number of cards in deck
+	private static final int ALL_CELLS = (1 << NUM_CELLS) - 1; // mask of all cells
+	private static final long ALL_CARDS = (1L << NUM_CARDS) - 1; // mask of all card ids
+	private static final int CHECK_INTERVAL = 1024; // positions solved per clock read
+	private static final int INITIAL_CAPACITY = 1 << 12; // initial number of memo slots
+
+	private final ScoreTracker tracker; // position being solved, with incrementally maintained score
+	private final long[] costNanos = new long[NUM_CELLS + 1]; // maximum measured nanoseconds of a solve by number of empty cells (0 if unmeasured)
+	private long[] keys = new long[INITIAL_CAPACITY]; // memoized grid hashes (0 for empty slots; the empty grid is never memoized)
+	private double[] values = new double[INITIAL_CAPACITY]; // memoized expected final scores
+	private int size = 0; // number of memoized positions
+	private long deadline; // nanoTime at which the current solve is abandoned
+	private int countdown; // positions solved before the next clock read
+	private boolean aborted; // whether or not the current solve passed its deadline
+
+	/**
+	 * Create an endgame solver for the given point system.
+	 * @param system point system
+	 */
+	public EndgameSolver(PokerSquaresPointSystem system) {
+		tracker = new ScoreTracker(system);
+	}
+
+	/**
+	 * Forget all memoized positions, e.g. at the start of a game.
+	 */
+	public void clear() {
+		Arrays.fill(keys, 0L);
+		size = 0;
+	}
+
+	/**
+	 * Return the best cell in which to place the given card in the given position, maximizing the expected final
+	 * score.  Ties are broken by the lowest cell.
+	 * @param state position with at least one empty cell, not containing the card
+	 * @param cardId id of the card to place
+	 * @param deadline nanoTime at which to abandon the solve
+	 * @return the row-major index of the best cell, or -1 if the deadline passed first
+	 */
+	public int getBestPlay(GridState state, int cardId, long deadline) {
+		load(state, deadline);
+		long start = System.nanoTime();
+		boolean fresh = size == 0;
+		int bestCell = -1;
+		double maxValue = Double.NEGATIVE_INFINITY;
+		for (int empty = ~tracker.getState().getOccupancy() & ALL_CELLS; empty != 0; empty &= empty - 1) {
+			int cell = Integer.numberOfTrailingZeros(empty);
+			tracker.place(cell, cardId);
+			double value = getExpectedScore();
+			tracker.undo();
+			if (value > maxValue) {
+				maxValue = value;
+				bestCell = cell;
+			}
+		}
+		if (aborted)
+			return -1;
+		if (fresh) {
+			int numEmpty = NUM_CELLS - state.getNumPlaced();
+			costNanos[numEmpty] = Math.max(costNanos[numEmpty], System.nanoTime() - start);
+		}
+		return bestCell;
+	}
+
+	/**
+	 * Return the expected final score of the given position before the next draw.
+	 * @param state position
+	 * @param deadline nanoTime at which to abandon the solve
+	 * @return the expected final score, or NaN if the deadline passed first
+	 */
+	public double getExpectedScore(GridState state, long deadline) {
+		load(state, deadline);
+		double value = getExpectedScore();
+		return aborted ? Double.NaN : value;
+	}
+
+	/**
+	 * Return the estimated nanoseconds of solving a position with the given number of empty cells from an empty
+	 * memo: the largest measured time, or else the estimate for one fewer empty cell times the number of draws it
+	 * adds (memoization absorbs the orders of the added placements).  Solves of three or fewer empty cells are never
+	 * unknown; larger ones are unknown until a smaller one has been measured.
+	 * @param numEmpty number of empty cells
+	 * @return the estimated nanoseconds of a solve, or Long.MAX_VALUE if unknown
+	 */
+	public long getEstimatedNanos(int numEmpty) {
+		if (numEmpty <= 1)
+			return 0;
+		if (costNanos[numEmpty] > 0 || numEmpty <= 3)
+			return costNanos[numEmpty];
+		long smaller = getEstimatedNanos(numEmpty - 1);
+		if (smaller == 0 || smaller == Long.MAX_VALUE)
+			return Long.MAX_VALUE;
+		long factor = NUM_CARDS - NUM_CELLS + numEmpty;
+		return smaller > Long.MAX_VALUE / factor ? Long.MAX_VALUE : smaller * factor;
+	}
+
+	/**
+	 * Return the number of memoized positions.
+	 * @return the number of memoized positions
+	 */
+	public int getNumPositions() {
+		return size;
+	}
+
+	/**
+	 * Load the given position into the tracker and start a solve with the given deadline.
+	 * @param state position
+	 * @param deadline nanoTime at which to abandon the solve
+	 */
+	private void load(GridState state, long deadline) {
+		tracker.clear();
+		for (int i = 0; i < state.getNumPlaced(); i++) {
+			int cell = state.getPlacedCell(i);
+			tracker.place(cell, state.getCardId(cell));
+		}
+		this.deadline = deadline;
+		countdown = CHECK_INTERVAL;
+		aborted = false;
+	}
+
+	/**
+	 * Return the expected final score of the tracker's position before the next draw: the average, over the undealt
+	 * cards, of the best expected score of placing the card.
+	 * @return the expected final score (meaningless if the solve is aborted)
+	 */
+	private double getExpectedScore() {
+		GridState state = tracker.getState();
+		int empty = ~state.getOccupancy() & ALL_CELLS;
+		if (empty == 0)
+			return tracker.getScore();
+		if (aborted)
+			return 0;
+		if (--countdown <= 0) {
+			countdown = CHECK_INTERVAL;
+			if (System.nanoTime() >= deadline) {
+				aborted = true;
+				return 0;
+			}
+		}
+		long key = state.getHash();
+		int slot = find(key);
+		if (keys[slot] == key)
+			return values[slot];
+		long undealt = ALL_CARDS & ~state.getDealtCards();
+		double total = 0;
+		if ((empty & (empty - 1)) == 0) { // one empty cell: the placement is forced
+			int cell = Integer.numberOfTrailingZeros(empty);
+			int score = tracker.getScore();
+			for (long cards = undealt; cards != 0; cards &= cards - 1)
+				total += score + tracker.scoreDelta(cell, Long.numberOfTrailingZeros(cards));
+		}
+		else
+			for (long cards = undealt; cards != 0; cards &= cards - 1) {
+				int cardId = Long.numberOfTrailingZeros(cards);
+				double maxValue = Double.NEGATIVE_INFINITY;
+				for (int cells = empty; cells != 0; cells &= cells - 1) {
+					tracker.place(Integer.numberOfTrailingZeros(cells), cardId);
+					maxValue = Math.max(maxValue, getExpectedScore());
+					tracker.undo();
+				}
+				total += maxValue;
+			}
+		double value = total / Long.bitCount(undealt);
+		if (!aborted)
+			memoize(key, value);
+		return value;
+	}
+
+	/**
+	 * Return the memo slot of the given key: the slot holding it, or else the empty slot where it belongs.
+	 * @param key grid hash
+	 * @return the memo slot of the key
+	 */
+	private int find(long key) {
+		int mask = keys.length - 1;
+		int slot = (int) (key ^ key >>> 32) & mask;
+		while (keys[slot] != key && keys[slot] != 0L)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	/**
+	 * Memoize the expected final score of the given key, growing the memo if it is more than half full.
+	 * @param key grid hash
+	 * @param value expected final score
+	 */
+	private void memoize(long key, double value) {
+		if (2 * (size + 1) > keys.length) {
+			long[] oldKeys = keys;
+			double[] oldValues = values;
+			keys = new long[2 * oldKeys.length];
+			values = new double[2 * oldValues.length];
+			for (int i = 0; i < oldKeys.length; i++)
+				if (oldKeys[i] != 0L) {
+					int slot = find(oldKeys[i]);
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+				}
+		}
+		int slot = find(key);
+		if (keys[slot] != key) {
+			keys[slot] = key;
+			size++;
+		}
+		values[slot] = value;
+	}
+
+	/**
+	 * Return the expected final score of the given position before the next draw by plain expectimax, without
+	 * memoization, as a reference for main().
+	 * @param tracker position with incrementally maintained score
+	 * @return the expected final score
+	 */
+	private static double getBruteForceScore(ScoreTracker tracker) {
+		GridState state = tracker.getState();
+		int empty = ~state.getOccupancy() & ALL_CELLS;
+		if (empty == 0)
+			return tracker.getScore();
+		long undealt = ALL_CARDS & ~state.getDealtCards();
+		double total = 0;
+		for (long cards = undealt; cards != 0; cards &= cards - 1) {
+			double maxValue = Double.NEGATIVE_INFINITY;
+			for (int cells = empty; cells != 0; cells &= cells - 1) {
+				tracker.place(Integer.numberOfTrailingZeros(cells), Long.numberOfTrailingZeros(cards));
+				maxValue = Math.max(maxValue, getBruteForceScore(tracker));
+				tracker.undo();
+			}
+			total += maxValue;
+		}
+		return total / Long.bitCount(undealt);
+	}
+
+	/**
+	 * Check the solver against plain expectimax on positions of random deals with 1 through 3 random empty cells, and that
+	 * its best plays achieve its expected scores.
+	 * @param args (not used)
+	 * @throws IllegalStateException if the solver disagrees with plain expectimax
+	 */
+	public static void main(String[] args) {
+		PokerSquaresPointSystem system = PokerSquaresPointSystem.getAmericanPointSystem();
+		FastRandom random = new FastRandom();
+		int[] deck = new int[NUM_CARDS];
+		int[] cells = new int[NUM_CELLS]; // cells in random order, the last numEmpty of which are left empty
+		for (int cell = 0; cell < NUM_CELLS; cell++)
+			cells[cell] = cell;
+		ScoreTracker tracker = new ScoreTracker(system);
+		int numChecked = 0;
+		int mismatches = 0;
+		for (long seed = 0; seed < 20; seed++) {
+			GameRunner.deal(random, seed, deck);
+			for (int i = NUM_CELLS - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				int cell = cells[i];
+				cells[i] = cells[j];
+				cells[j] = cell;
+			}
+			for (int numEmpty = 1; numEmpty <= 3; numEmpty++) {
+				EndgameSolver solver = new EndgameSolver(system);
+				GridState state = new GridState();
+				tracker.clear();
+				for (int i = 0; i < NUM_CELLS - numEmpty; i++) {
+					state.place(cells[i], deck[i]);
+					tracker.place(cells[i], deck[i]);
+				}
+				double expected = getBruteForceScore(tracker);
+				double solved = solver.getExpectedScore(state, Long.MAX_VALUE);
+				int cardId = deck[NUM_CELLS - numEmpty];
+				int cell = solver.getBestPlay(state, cardId, Long.MAX_VALUE);
+				double bestValue = Double.NEGATIVE_INFINITY; // best expected score of placing the card, by plain expectimax
+				double cellValue = 0; // expected score of placing the card in the solver's cell, by plain expectimax
+				for (int empty = ~state.getOccupancy() & ALL_CELLS; empty != 0; empty &= empty - 1) {
+					int c = Integer.numberOfTrailingZeros(empty);
+					tracker.place(c, cardId);
+					double value = getBruteForceScore(tracker);
+					tracker.undo();
+					bestValue = Math.max(bestValue, value);
+					if (c == cell)
+						cellValue = value;
+				}
+				numChecked++;
+				if (Math.abs(solved - expected) > 1e-9 || Math.abs(cellValue - bestValue) > 1e-9) {
+					if (mismatches++ < 10)
+						System.out.printf("Mismatch: seed %d, %d empty: expected %f, solved %f; best play %f, solver's play %f\n",
+								seed, numEmpty, expected, solved, bestValue, cellValue);
+				}
+			}
+		}
+		System.out.printf("Positions checked: %d, mismatches: %d\n", numChecked, mismatches);
+		if (mismatches > 0)
+			throw new IllegalStateException("Endgame solver disagrees with plain expectimax");
+	}
+}
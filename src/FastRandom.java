@@ -0,0 +1,78 @@
+/**
+ * FastRandom - A fast, seedable, non-synchronized pseudorandom number generator (SplitMix64).
+ *
+ * Unlike {@link java.util.Random}, it has no atomic state updates, so it suits single-threaded hot loops such as
+ * shuffling and Monte Carlo simulation.  Each thread should use its own instance.
+ */
+public final class FastRandom {
+
+	private long state; // generator state
+
+	/**
+	 * Create a generator with the given seed.
+	 * @param seed pseudorandom number generator seed
+	 */
+	public FastRandom(long seed) {
+		setSeed(seed);
+	}
+
+	/**
+	 * Create a generator with a seed derived from the current time.
+	 */
+	public FastRandom() {
+		this(System.nanoTime());
+	}
+
+	/**
+	 * Set the seed of the generator.
+	 * @param seed pseudorandom number generator seed
+	 */
+	public void setSeed(long seed) {
+		state = seed;
+	}
+
+	/**
+	 * Return the current state of the generator, from which {@link #setSeed(long)} continues the same sequence.
+	 * @return the current state of the generator
+	 */
+	public long getSeed() {
+		return state;
+	}
+
+	/**
+	 * Return the next pseudorandom long.
+	 * @return the next pseudorandom long
+	 */
+	public long nextLong() {
+		long z = (state += 0x9E3779B97F4A7C15L);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Return a pseudorandom int in the range [0, bound).  The bias of the multiply-shift reduction is at most
+	 * bound / 2^32, which is negligible for the small bounds used here.
+	 * @param bound upper bound (exclusive); must be positive
+	 * @return a pseudorandom int in the range [0, bound)
+	 */
+	public int nextInt(int bound) {
+		return (int) (((nextLong() >>> 32) * bound) >>> 32);
+	}
+
+	/**
+	 * Return a pseudorandom double in the range [0, 1).
+	 * @return a pseudorandom double in the range [0, 1)
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Return a pseudorandom boolean.
+	 * @return a pseudorandom boolean
+	 */
+	public boolean nextBoolean() {
+		return nextLong() < 0;
+	}
+}
@@ -0,0 +1,40 @@
+/**
+ * GameEventSink - Receives the events of games played by a {@link GameRunner}.
+ *
+ * Cards are identified by card identification numbers and cells by row-major indices (row * SIZE + col).
+ * All methods do nothing by default, so sinks need only override the events they record.
+ */
+public interface GameEventSink {
+
+	/**
+	 * a sink that ignores all events
+	 */
+	GameEventSink NONE = new GameEventSink() {
+	};
+
+	/**
+	 * gameStarted - called before the first card of a game is dealt.
+	 * @param gameId identification number of the game
+	 * @param seed seed of the game's deal
+	 * @param systemId identification number of the point system
+	 * @param system point system
+	 */
+	default void gameStarted(long gameId, long seed, int systemId, PokerSquaresPointSystem system) {
+	}
+
+	/**
+	 * cardPlayed - called after each legal play.
+	 * @param cardId identification number of the card played
+	 * @param cell row-major index of the cell where the card was played
+	 * @param nanos nanoseconds the player spent choosing the play (0 for untimed games)
+	 */
+	default void cardPlayed(int cardId, int cell, long nanos) {
+	}
+
+	/**
+	 * gameEnded - called when a game ends, whether completed, timed out, or ended by an illegal play.
+	 * @param score final game score
+	 */
+	default void gameEnded(int score) {
+	}
+}
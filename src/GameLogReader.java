@@ -0,0 +1,231 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * GameLogReader - Streams the game records of a game log written by {@link BinaryLogSink}.
+ *
+ * The reader is a cursor: each call to next() reads the next record into a fixed buffer, whose fields are then read
+ * with the getters.  Only a bounded batch of records is held in memory, so logs of any size can be analysed.  A
+ * trailing partial record (e.g. of a process killed while writing) is ignored.
+ *
+ * Typical use:
+ * <pre>
+ * try (GameLogReader reader = new GameLogReader(file)) {
+ *     while (reader.next())
+ *         analyse(reader.getSeed(), reader.getScore());
+ * }
+ * </pre>
+ */
+public class GameLogReader implements Closeable {
+
+	private static final int RECORD_BYTES = BinaryLogSink.RECORD_BYTES; // number of bytes of each game record
+	private static final int MOVE_BYTES = BinaryLogSink.MOVE_BYTES; // number of bytes of each move
+	private static final int MOVES_START = 8 + 8 + 4 + 1; // record offset of the first move
+	private static final int BATCH_RECORDS = 256; // number of records read per batch
+
+	private final ReadableByteChannel channel; // log input
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BATCH_RECORDS * RECORD_BYTES); // batch of records
+	private int record = -RECORD_BYTES; // buffer position of the current record
+	private boolean endOfInput = false; // whether or not the channel has been read to its end
+	private long recordsLeft = Long.MAX_VALUE; // number of records left to read
+
+	/**
+	 * Open a game log file, checking its header.
+	 * @param file game log file
+	 * @throws UncheckedIOException if the file cannot be read or is not a game log
+	 */
+	public GameLogReader(Path file) {
+		try {
+			channel = FileChannel.open(file, StandardOpenOption.READ);
+			ByteBuffer header = ByteBuffer.allocate(BinaryLogSink.HEADER_BYTES);
+			while (header.hasRemaining() && channel.read(header) >= 0)
+				;
+			header.flip();
+			if (header.remaining() < BinaryLogSink.HEADER_BYTES || header.getInt() != BinaryLogSink.MAGIC
+					|| header.getInt() != RECORD_BYTES) {
+				channel.close();
+				throw new IOException("Not a game log: " + file);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Open a range of the game records of a game log file, checking its header.
+	 * @param file game log file
+	 * @param firstRecord index of the first record to read
+	 * @param numRecords maximum number of records to read
+	 * @throws UncheckedIOException if the file cannot be read or is not a game log
+	 */
+	public GameLogReader(Path file, long firstRecord, long numRecords) {
+		this(file);
+		try {
+			((FileChannel) channel).position(BinaryLogSink.HEADER_BYTES + firstRecord * RECORD_BYTES);
+		} catch (IOException e) {
+			close();
+			throw new UncheckedIOException(e);
+		}
+		recordsLeft = numRecords;
+	}
+
+	/**
+	 * Read headerless game records from the given channel.
+	 * @param channel log input
+	 */
+	public GameLogReader(ReadableByteChannel channel) {
+		this.channel = channel;
+		buffer.flip();
+	}
+
+	/**
+	 * Return the number of complete game records of a game log file.
+	 * @param file game log file
+	 * @return the number of complete game records
+	 * @throws UncheckedIOException if the file cannot be read
+	 */
+	public static long getNumRecords(Path file) {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return Math.max(0, (channel.size() - BinaryLogSink.HEADER_BYTES) / RECORD_BYTES);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Advance to the next game record.
+	 * @return whether or not there is a next game record
+	 * @throws UncheckedIOException if the log cannot be read
+	 */
+	public boolean next() {
+		if (recordsLeft == 0)
+			return false;
+		recordsLeft--;
+		record += RECORD_BYTES;
+		if (buffer.limit() - record >= RECORD_BYTES)
+			return true;
+		buffer.position(record);
+		buffer.compact();
+		try {
+			while (!endOfInput && buffer.hasRemaining())
+				endOfInput = channel.read(buffer) < 0;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		buffer.flip();
+		record = 0;
+		return buffer.limit() >= RECORD_BYTES;
+	}
+
+	/**
+	 * Return the game identification number of the current record.
+	 * @return the game identification number
+	 */
+	public long getGameId() {
+		return buffer.getLong(record);
+	}
+
+	/**
+	 * Return the seed of the current record's deal.
+	 * @return the seed of the deal
+	 */
+	public long getSeed() {
+		return buffer.getLong(record + 8);
+	}
+
+	/**
+	 * Return the point system identification number of the current record.
+	 * @return the point system identification number
+	 */
+	public int getPointSystemId() {
+		return buffer.getInt(record + 16);
+	}
+
+	/**
+	 * Return the number of moves of the current record.  It is less than SIZE * SIZE for games ended by a timeout or
+	 * an illegal play.
+	 * @return the number of moves
+	 */
+	public int getNumMoves() {
+		return buffer.get(record + 20);
+	}
+
+	/**
+	 * Return the identification number of the card of the ith move of the current record.
+	 * @param i move index in [0, getNumMoves())
+	 * @return the card identification number
+	 */
+	public int getCardId(int i) {
+		return buffer.get(record + MOVES_START + i * MOVE_BYTES);
+	}
+
+	/**
+	 * Return the row-major cell index of the ith move of the current record.
+	 * @param i move index in [0, getNumMoves())
+	 * @return the row-major cell index
+	 */
+	public int getCell(int i) {
+		return buffer.get(record + MOVES_START + i * MOVE_BYTES + 1);
+	}
+
+	/**
+	 * Return the nanoseconds spent on the ith move of the current record.
+	 * @param i move index in [0, getNumMoves())
+	 * @return the nanoseconds spent (0 for untimed games)
+	 */
+	public long getNanos(int i) {
+		return buffer.getLong(record + MOVES_START + i * MOVE_BYTES + 2);
+	}
+
+	/**
+	 * Return the final score of the current record.
+	 * @return the final score
+	 */
+	public int getScore() {
+		return buffer.getInt(record + RECORD_BYTES - 4);
+	}
+
+	@Override
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Summarize a game log: score statistics and mean milliseconds spent on each move.
+	 * @param args game log file
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.err.println("Usage: java GameLogReader <game log file>");
+			System.exit(1);
+		}
+		ScoreStatistics stats = new ScoreStatistics();
+		long[] totalNanos = new long[BinaryLogSink.NUM_MOVES];
+		long[] numMoves = new long[BinaryLogSink.NUM_MOVES];
+		try (GameLogReader reader = new GameLogReader(Paths.get(args[0]))) {
+			while (reader.next()) {
+				stats.add(reader.getScore());
+				for (int i = 0; i < reader.getNumMoves(); i++) {
+					totalNanos[i] += reader.getNanos(i);
+					numMoves[i]++;
+				}
+			}
+		}
+		System.out.printf("%d games\n%s\n", stats.getCount(), stats);
+		System.out.println("Move Mean Milliseconds");
+		for (int i = 0; i < totalNanos.length; i++)
+			System.out.printf("%4d %f\n", i + 1, numMoves[i] == 0 ? 0 : totalNanos[i] / 1e6 / numMoves[i]);
+	}
+}
@@ -0,0 +1,208 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * GameReplay - Offline replay of games recorded in game logs (see {@link BinaryLogSink}).
+ *
+ * Recorded placements can be re-scored in bulk under any point systems without replaying the players, and positions
+ * of recorded games can be replayed up to any move so that the decisions of another {@link ReplayablePlayer} can be
+ * evaluated from real mid-game positions.
+ *
+ * Note that players adapt their placements to the point system they are given, so re-scoring shows what the
+ * recorded placements would score under another point system, not what the player would have scored had it played
+ * under that system.  Only completed games (of SIZE * SIZE moves) are re-scored.
+ */
+public class GameReplay {
+
+	private static final int NUM_MOVES = BinaryLogSink.NUM_MOVES; // number of moves of a completed game
+	private static final int MIN_RECORDS_PER_TASK = 1 << 16; // minimum number of records re-scored by each task
+
+	/**
+	 * Re-score all completed games of a game log under each of the given point systems, in parallel on the given
+	 * executor, and return the score statistics of each point system.
+	 * @param log game log file
+	 * @param systems point systems
+	 * @param executor executor (e.g. a ForkJoinPool) on which ranges of the log are re-scored
+	 * @return the score statistics of each point system, in the order of the given point systems
+	 */
+	public static ScoreStatistics[] rescore(final Path log, List<PokerSquaresPointSystem> systems,
+			ExecutorService executor) {
+		final CompiledPointSystem[] kernels = new CompiledPointSystem[systems.size()];
+		for (int i = 0; i < kernels.length; i++)
+			kernels[i] = systems.get(i).getCompiledPointSystem();
+		long numRecords = GameLogReader.getNumRecords(log);
+		int numTasks = (int) Math.max(1, Math.min(4 * Runtime.getRuntime().availableProcessors(),
+				numRecords / MIN_RECORDS_PER_TASK));
+		ArrayList<Callable<ScoreStatistics[]>> tasks = new ArrayList<Callable<ScoreStatistics[]>>(numTasks);
+		for (int t = 0; t < numTasks; t++) {
+			final long firstRecord = numRecords * t / numTasks;
+			final long lastRecord = numRecords * (t + 1) / numTasks;
+			tasks.add(new Callable<ScoreStatistics[]>() {
+				@Override
+				public ScoreStatistics[] call() {
+					try (GameLogReader reader = new GameLogReader(log, firstRecord, lastRecord - firstRecord)) {
+						return rescore(reader, kernels);
+					}
+				}
+			});
+		}
+		ScoreStatistics[] stats = newStatistics(kernels.length);
+		try {
+			for (Future<ScoreStatistics[]> result : executor.invokeAll(tasks)) {
+				ScoreStatistics[] taskStats = result.get();
+				for (int i = 0; i < stats.length; i++)
+					stats[i].merge(taskStats[i]);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while re-scoring games", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Re-scoring failed", e.getCause());
+		}
+		return stats;
+	}
+
+	/**
+	 * Re-score the remaining completed games of the given reader under each of the given compiled point systems.
+	 * @param reader game log reader
+	 * @param kernels compiled point systems
+	 * @return the score statistics of each compiled point system
+	 */
+	static ScoreStatistics[] rescore(GameLogReader reader, CompiledPointSystem[] kernels) {
+		ScoreStatistics[] stats = newStatistics(kernels.length);
+		GridState state = new GridState();
+		while (reader.next())
+			if (reader.getNumMoves() == NUM_MOVES) {
+				replay(reader, NUM_MOVES, state);
+				for (int i = 0; i < kernels.length; i++)
+					stats[i].add(kernels[i].getScore(state));
+			}
+		return stats;
+	}
+
+	/**
+	 * Return new, empty score statistics.
+	 * @param n number of score statistics
+	 * @return n new, empty score statistics
+	 */
+	private static ScoreStatistics[] newStatistics(int n) {
+		ScoreStatistics[] stats = new ScoreStatistics[n];
+		for (int i = 0; i < n; i++)
+			stats[i] = new ScoreStatistics();
+		return stats;
+	}
+
+	/**
+	 * Set the given grid state to the position of the reader's current game after the given number of moves.
+	 * @param reader game log reader positioned at a game record
+	 * @param numMoves number of moves to replay, at most reader.getNumMoves()
+	 * @param state grid state to set
+	 * @return the given grid state
+	 */
+	public static GridState replay(GameLogReader reader, int numMoves, GridState state) {
+		if (numMoves > reader.getNumMoves())
+			throw new IllegalArgumentException("Game " + reader.getGameId() + " has only " + reader.getNumMoves()
+					+ " moves");
+		state.clear();
+		for (int i = 0; i < numMoves; i++)
+			state.place(reader.getCell(i), reader.getCardId(i));
+		return state;
+	}
+
+	/**
+	 * Place the given player in the position of the reader's current game after k moves, and return the player's
+	 * play of the card of move k.  The player must already be prepared for a point system.
+	 * @param player player prepared for a point system
+	 * @param reader game log reader positioned at a game record
+	 * @param k number of moves to replay, less than reader.getNumMoves()
+	 * @param millisRemaining milliseconds remaining in the game, passed to the player
+	 * @return the player's play (row, column) of the card of move k
+	 */
+	public static int[] getPlay(ReplayablePlayer player, GameLogReader reader, int k, long millisRemaining) {
+		if (k >= reader.getNumMoves())
+			throw new IllegalArgumentException("Game " + reader.getGameId() + " has only " + reader.getNumMoves()
+					+ " moves");
+		player.init();
+		for (int i = 0; i < k; i++)
+			player.makePlay(Card.getCard(reader.getCardId(i)), reader.getCell(i) / PokerSquares.SIZE,
+					reader.getCell(i) % PokerSquares.SIZE);
+		return player.getPlay(Card.getCard(reader.getCardId(k)), millisRemaining);
+	}
+
+	/**
+	 * Place the given player in the position of the reader's current completed game after k moves, let it play the
+	 * recorded cards of the remaining moves, and return the final score.  Players are not timed, but are offered
+	 * millisRemaining milliseconds for each of the remaining moves.
+	 * @param player player prepared for the given point system
+	 * @param system point system
+	 * @param reader game log reader positioned at the record of a completed game
+	 * @param k number of moves to replay
+	 * @param millisRemaining milliseconds remaining in the game, passed to the player
+	 * @return the final score, or 10 times the minimum hand score if the player makes an illegal play
+	 */
+	public static int playFrom(ReplayablePlayer player, PokerSquaresPointSystem system, GameLogReader reader, int k,
+			long millisRemaining) {
+		if (reader.getNumMoves() != NUM_MOVES)
+			throw new IllegalArgumentException("Game " + reader.getGameId() + " was not completed");
+		GridState state = replay(reader, k, new GridState());
+		player.init();
+		for (int i = 0; i < k; i++)
+			player.makePlay(Card.getCard(reader.getCardId(i)), reader.getCell(i) / PokerSquares.SIZE,
+					reader.getCell(i) % PokerSquares.SIZE);
+		for (int i = k; i < NUM_MOVES; i++) {
+			int cardId = reader.getCardId(i);
+			int[] play = player.getPlay(Card.getCard(cardId), millisRemaining);
+			if (play.length != 2 || play[0] < 0 || play[0] >= PokerSquares.SIZE || play[1] < 0
+					|| play[1] >= PokerSquares.SIZE || !state.isEmpty(play[0] * PokerSquares.SIZE + play[1])) {
+				int min = Integer.MAX_VALUE;
+				for (int points : system.getScoreTable())
+					min = Math.min(min, points);
+				return 10 * min;
+			}
+			state.place(play[0] * PokerSquares.SIZE + play[1], cardId);
+		}
+		return system.getScore(state);
+	}
+
+	/**
+	 * Re-score a game log under the American, British and Ameritish point systems and a number of random point
+	 * systems.
+	 * @param args game log file and optional number of random point systems (default 10)
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.err.println("Usage: java GameReplay <game log file> [<number of random point systems>]");
+			System.exit(1);
+		}
+		int numRandom = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		ArrayList<PokerSquaresPointSystem> systems = new ArrayList<PokerSquaresPointSystem>();
+		ArrayList<String> names = new ArrayList<String>();
+		systems.add(PokerSquaresPointSystem.getAmericanPointSystem());
+		names.add("American");
+		systems.add(PokerSquaresPointSystem.getBritishPointSystem());
+		names.add("British");
+		systems.add(PokerSquaresPointSystem.getAmeritishPointSystem());
+		names.add("Ameritish");
+		PokerSquaresPointSystem.setSeed(0L);
+		for (int i = 0; i < numRandom; i++) {
+			systems.add(PokerSquaresPointSystem.getRandomPointSystem());
+			names.add("Random " + i);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		long start = System.nanoTime();
+		ScoreStatistics[] stats = rescore(Paths.get(args[0]), systems, executor);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		executor.shutdown();
+		for (int i = 0; i < stats.length; i++)
+			System.out.printf("%-10s %s\n", names.get(i), stats[i]);
+		System.out.printf("Re-scored %d games under %d point systems in %.2f s\n", stats[0].getCount(), stats.length,
+				seconds);
+	}
+}
@@ -0,0 +1,232 @@
+/**
+ * GameRunner - A headless, high-throughput Poker Squares engine.
+ *
+ * The runner plays the same game as {@link PokerSquares}, but keeps the deck and grid as primitive arrays, shuffles
+ * with an inline Fisher-Yates shuffle driven by a {@link FastRandom}, reads the clock once per move, and reports
+ * game events to a pluggable {@link GameEventSink} instead of printing.  In untimed mode the clock is never read and
+ * the player is always offered the full game time, which makes evaluation of fast, deterministic players (such as
+ * evolved decision trees) exactly reproducible.  Timed games charge the charging mode of {@link PokerSquares}
+ * unless set otherwise; the sink is reported the charged nanoseconds of each move.
+ *
+ * Deals depend only on the seed, but differ from the shuffled deals {@link PokerSquares} produces for the same seed.
+ * Deals of seeds held by a {@link DealCorpus} are read from it rather than shuffled; they are the same deals.
+ */
+public class GameRunner {
+
+	private static final int SIZE = PokerSquares.SIZE; // number of rows/columns in square grid
+	private static final int NUM_CELLS = SIZE * SIZE; // number of cells in square grid
+
+	private final PokerSquaresPlayer player; // current player
+	private final PokerSquaresPointSystem system; // current point system
+	private final int minPoints; // minimum possible score for current point system
+	private final int[] deck = new int[Card.NUM_CARDS]; // card ids; the first NUM_CELLS are dealt in order
+	private final GridState state = new GridState(); // current game grid
+	private final FastRandom random = new FastRandom(0L); // current game random number generator
+	private DealCorpus corpus = PokerSquares.getDealCorpus(); // precomputed deals (or null)
+	private GameEventSink sink = GameEventSink.NONE; // receiver of game events
+	private boolean timed = true; // whether or not players are charged for their time
+	private PlayTimer cpuTimer = newCpuTimer(PokerSquares.getChargeMode()); // timer charging CPU time (or null)
+	private long gameMillis = PokerSquares.GAME_MILLIS; // maximum milliseconds for each game
+	private int systemId = 0; // point system identification number reported to the sink
+	private long nextGameId = 0; // identification number of the next game
+
+	/**
+	 * Create a game runner with a given player and point system, preparing the player for the point system.
+	 * @param player Poker Squares player object
+	 * @param system current Poker Squares point system
+	 */
+	public GameRunner(PokerSquaresPlayer player, PokerSquaresPointSystem system) {
+		this(PlayerSession.prepare(player, system, PokerSquares.POINT_SYSTEM_MILLIS));
+	}
+
+	/**
+	 * Create a game runner with the prepared player and point system of the given session.
+	 * @param session player session prepared for a point system
+	 */
+	public GameRunner(PlayerSession session) {
+		this.player = session.getPlayer();
+		this.system = session.getPointSystem();
+		int min = Integer.MAX_VALUE;
+		for (int points : system.getScoreTable())
+			if (points < min)
+				min = points;
+		minPoints = 10 * min;
+	}
+
+	/**
+	 * Set the receiver of game events.
+	 * @param sink receiver of game events
+	 */
+	public void setEventSink(GameEventSink sink) {
+		this.sink = sink;
+	}
+
+	/**
+	 * Set whether or not players are charged for their time.  Untimed games never read the clock.
+	 * @param timed whether or not players are charged for their time
+	 */
+	public void setTimed(boolean timed) {
+		this.timed = timed;
+	}
+
+	/**
+	 * Set what players are charged for in timed games.  Initially, this is the charging mode of {@link PokerSquares}.
+	 * @param mode what players are charged for
+	 */
+	public void setChargeMode(PlayTimer.Mode mode) {
+		cpuTimer = newCpuTimer(mode);
+	}
+
+	/**
+	 * Return a timer charging CPU time in CPU mode, or null in WALL mode, where the clock is read directly once per
+	 * move.
+	 * @param mode what players are charged for
+	 * @return a CPU time play timer or null
+	 */
+	private static PlayTimer newCpuTimer(PlayTimer.Mode mode) {
+		return mode == PlayTimer.Mode.CPU ? new PlayTimer(mode) : null;
+	}
+
+	/**
+	 * Set the maximum milliseconds for each game.
+	 * @param gameMillis maximum milliseconds for each game
+	 */
+	public void setGameMillis(long gameMillis) {
+		this.gameMillis = gameMillis;
+	}
+
+	/**
+	 * Set the corpus from which deals are read.  Initially, this is the deal corpus of {@link PokerSquares}.
+	 * @param corpus precomputed deals (or null to always shuffle)
+	 */
+	public void setDealCorpus(DealCorpus corpus) {
+		this.corpus = corpus;
+	}
+
+	/**
+	 * Set the point system identification number reported to the event sink.
+	 * @param systemId point system identification number
+	 */
+	public void setPointSystemId(int systemId) {
+		this.systemId = systemId;
+	}
+
+	/**
+	 * Play a game of Poker Squares with the deal given by the seed and return the final game score.
+	 * @param seed seed of the deal
+	 * @return final game score
+	 */
+	public int play(long seed) {
+		player.init();
+
+		if (corpus != null && corpus.contains(seed))
+			corpus.getDeal(seed, deck);
+		else
+			deal(random, seed, deck);
+		state.clear();
+		sink.gameStarted(nextGameId++, seed, systemId, system);
+
+		// play game
+		long nanosRemaining = gameMillis * 1000000L;
+		boolean cpuTimed = timed && cpuTimer != null;
+		if (cpuTimed)
+			cpuTimer.reset();
+		boolean wallTimed = timed && !cpuTimed;
+		for (int i = 0; i < NUM_CELLS; i++) {
+			int cardId = deck[i];
+			Card card = Card.getCard(cardId);
+			long millisRemaining = nanosRemaining / 1000000L;
+			if (cpuTimed)
+				cpuTimer.start();
+			// only the call itself is charged, not the previous move's placement, sink callbacks or output
+			long start = wallTimed ? System.nanoTime() : 0L;
+			int[] play = player.getPlay(card, millisRemaining);
+			long end = wallTimed ? System.nanoTime() : 0L;
+			long nanos = 0L;
+			if (cpuTimed) {
+				nanos = cpuTimer.stop();
+				nanosRemaining -= nanos;
+				if (nanosRemaining < 0 || cpuTimer.isWallLimitExceeded(gameMillis * 1000000L)) { // times out
+					sink.gameEnded(minPoints);
+					return minPoints;
+				}
+			}
+			else if (timed) {
+				nanos = end - start;
+				nanosRemaining -= nanos;
+				if (nanosRemaining < 0) { // times out
+					sink.gameEnded(minPoints);
+					return minPoints;
+				}
+			}
+			if (play.length != 2 || play[0] < 0 || play[0] >= SIZE || play[1] < 0 || play[1] >= SIZE
+					|| !state.isEmpty(play[0] * SIZE + play[1])) { // illegal play
+				sink.gameEnded(minPoints);
+				return minPoints;
+			}
+			int cell = play[0] * SIZE + play[1];
+			state.place(cell, cardId);
+			sink.cardPlayed(cardId, cell, nanos);
+		}
+		int score = system.getScore(state);
+		sink.gameEnded(score);
+		return score;
+	}
+
+	/**
+	 * Deal the first NUM_CELLS cards of a Fisher-Yates shuffle of the deck for the given seed.
+	 * @param random random number generator, reseeded with the given seed
+	 * @param seed seed of the deal
+	 * @param deck array of Card.NUM_CARDS card ids, the first NUM_CELLS of which are set to the deal in order
+	 */
+	static void deal(FastRandom random, long seed, int[] deck) {
+		random.setSeed(seed);
+		for (int i = 0; i < Card.NUM_CARDS; i++)
+			deck[i] = i;
+		for (int i = 0; i < NUM_CELLS; i++) {
+			int j = i + random.nextInt(Card.NUM_CARDS - i);
+			int cardId = deck[j];
+			deck[j] = deck[i];
+			deck[i] = cardId;
+		}
+	}
+
+	/**
+	 * Play a sequence of games with successive seeds and return their scores.
+	 * @param numGames number of games to play
+	 * @param startSeed seed of first game. Successive games use successive seeds
+	 * @return integer array of game scores
+	 */
+	public int[] playSequence(int numGames, long startSeed) {
+		int[] scores = new int[numGames];
+		for (int i = 0; i < numGames; i++)
+			scores[i] = play(startSeed + i);
+		return scores;
+	}
+
+	/**
+	 * Return the grid state of the current or most recent game.
+	 * @return the grid state of the current or most recent game
+	 */
+	public GridState getState() {
+		return state;
+	}
+
+	/**
+	 * Measure the throughput of RandomPlayer games in untimed mode.
+	 * @param args (not used)
+	 */
+	public static void main(String[] args) {
+		GameRunner runner = new GameRunner(new RandomPlayer(), PokerSquaresPointSystem.getAmericanPointSystem());
+		runner.setTimed(false);
+		int numGames = 1000000;
+		runner.playSequence(numGames / 10, 0L); // warm up
+		long start = System.nanoTime();
+		int[] scores = runner.playSequence(numGames, 0L);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long total = 0;
+		for (int score : scores)
+			total += score;
+		System.out.printf("%d games in %.2f s (%.0f games/s), mean score %.3f\n", numGames, seconds, numGames / seconds, (double) total / numGames);
+	}
+}
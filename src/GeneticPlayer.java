@@ -1,3 +1,4 @@
+import java.nio.file.Path;
 import java.util.*;
 
 public class GeneticPlayer implements PokerSquaresPlayer {
@@ -8,6 +9,7 @@ public class GeneticPlayer implements PokerSquaresPlayer {
     private int numPlays = 0; // number of Cards played into the grid so far
     private PokerSquaresPointSystem system; // point system
     private Node headNode;
+    private Path checkpoint = null; // file checkpointing the evolution (null for none)
 
 
 
@@ -15,20 +17,37 @@ public class GeneticPlayer implements PokerSquaresPlayer {
     }
 
 
+    /**
+     * Checkpoints the evolution to the given file after every generation,
+     * and resumes from it when preparing for the same point system.
+     * @param checkpoint checkpoint file (null for none)
+     */
+    public void setCheckpoint(Path checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+
     @Override
     public void setPointSystem(PokerSquaresPointSystem system, long millis) {
         this.system = system;
 
         ChromosomeFactory chrome = new ChromosomeFactory(system);
-        chrome.createChromosomes();
+        int completed = checkpoint == null ? 0 : chrome.readCheckpoint(checkpoint);
+        if (completed == 0)
+            chrome.createChromosomes();
+        else
+            System.out.println("Resuming after generation: " + completed);
         long startTime = System.currentTimeMillis();
-        int count = 1;
-        while((System.currentTimeMillis()-startTime) < SETUP_PROP*millis) {
+        int count = completed + 1;
+        // stop early if interrupted at the preparation deadline
+        while((System.currentTimeMillis()-startTime) < SETUP_PROP*millis && !Thread.currentThread().isInterrupted()) {
             System.out.println("Generation: " + count);
-            count++;
             Chromosome best = chrome.selectNextGeneration();
             chrome.mutateAll();
             chrome.crossOver();
+            if (checkpoint != null)
+                chrome.writeCheckpoint(checkpoint, count);
+            count++;
         }
         Chromosome best = chrome.selectNextGeneration();
         headNode = best.getHead();
@@ -71,6 +90,10 @@ public class GeneticPlayer implements PokerSquaresPlayer {
 
 
     public static void main(String[] args) {
+        // "-exactPotential" scores flush and straight rules by exact expectations (see Rule.setExactPotential)
+        for (String arg : args) {
+            if (arg.equals("-exactPotential")) Rule.setExactPotential(true);
+        }
         PokerSquaresPointSystem system = PokerSquaresPointSystem.getAmericanPointSystem();
         System.out.println(system);
 
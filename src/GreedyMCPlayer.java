@@ -1,5 +1,12 @@
 import java.util.ArrayList;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * GreedyMCPlayer - a simple, greedy Monte Carlo implementation of the player interface for PokerSquares.
@@ -9,28 +16,49 @@ import java.util.Random;
  * 
  * Disclaimer: This example code is not intended as a model of efficiency. (E.g., patterns from Knuth's Dancing Links
  * algorithm (DLX) can provide faster legal move list iteration/deletion/restoration.)  Rather, this example
- * code illustrates how a player could be constructed.  Note how time is simply managed so as to not run out the play clock.
+ * code illustrates how a player could be constructed.  Note how a TimeBudget manages time so as to not run out the play clock.
+ * 
+ * Each simulation thread owns its own simulation context (grid, plays, deck, and score tracker).  With more than one
+ * thread, every thread simulates each candidate play during that play's slice of the move's time, and the per-play
+ * totals of all threads are merged before the best play is chosen.  Helper threads come from a pool of daemon threads
+ * shared by all instances, so players need no shutdown.  Note that in the CPU charging mode of PokerSquares only the
+ * calling thread's time is charged, so multi-threaded players are best compared in WALL mode.
+ * 
+ * With successive halving (see setSuccessiveHalving), the move's time is divided into rounds rather than spread
+ * evenly over all candidate plays: each round divides its time evenly across the remaining candidates, then drops
+ * the worse half by average score, so most simulations go to the contenders for the best play.
+ * 
+ * Once few enough cells are empty and the measured cost of an exact solve fits half the move's time, the play is
+ * chosen by an {@link EndgameSolver} instead of by simulation.
  * 
  * Author: Todd W. Neller
  */
-public class GreedyMCPlayer implements PokerSquaresPlayer {
+public class GreedyMCPlayer implements ReplayablePlayer {
 	
+	private static final AtomicInteger threadCount = new AtomicInteger(); // number of simulation threads created
+	private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "GreedyMCPlayer-simulate-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}); // daemon threads running simulations[1] onward, shared by all players; idle threads exit after a minute
 	private final int SIZE = 5; // number of rows/columns in square grid
 	private final int NUM_POS = SIZE * SIZE; // number of positions in square grid
 	private final int NUM_CARDS = Card.NUM_CARDS; // number of cards in deck
-	private Random random = new Random(); // pseudorandom number generator for Monte Carlo simulation 
-	private int[] plays = new int[NUM_POS]; // positions of plays so far (index 0 through numPlays - 1) recorded as integers using row-major indices.
-	// row-major indices: play (r, c) is recorded as a single integer r * SIZE + c (See http://en.wikipedia.org/wiki/Row-major_order)
-	// From plays index [numPlays] onward, we maintain a list of yet unplayed positions.
-	private int numPlays = 0; // number of Cards played into the grid so far
+	private Random random = new Random(); // pseudorandom number generator for breaking ties between plays
 	private PokerSquaresPointSystem system; // point system
+	private TimeBudget budget = new TimeBudget(); // allocation of game time across moves and play evaluations
 	private int depthLimit = 2; // default depth limit for Greedy Monte Carlo (MC) play
-	private Card[][] grid = new Card[SIZE][SIZE]; // grid with Card objects or null (for empty positions)
-	private Card[] simDeck = Card.getAllCards(); // a list of all Cards. As we learn the index of cards in the play deck,
-	                                             // we swap each dealt card to its correct index.  Thus, from index numPlays 
-												 // onward, we maintain a list of undealt cards for MC simulation.
-	private int[][] legalPlayLists = new int[NUM_POS][NUM_POS]; // stores legal play lists indexed by numPlays (depth)
-	// (This avoids constant allocation/deallocation of such lists during the greedy selections of MC simulations.)
+	private int numThreads = 1; // number of simulation threads, including the calling thread
+	private Simulation[] simulations = new Simulation[0]; // simulation context of each thread; simulations[0] belongs to the calling thread
+	private int[] candidates = new int[NUM_POS]; // empty positions considered for the current move
+	private boolean halving = false; // whether or not candidates are selected by successive halving
+	private int[] active = new int[NUM_POS]; // candidate indices still under evaluation (index 0 through numActive - 1)
+	private double[] averageScores = new double[NUM_POS]; // average simulation score of each candidate when last sorted
+	private EndgameSolver solver; // exact solver of the final placements
+	private int maxSolverEmpty = EndgameSolver.DEFAULT_MAX_EMPTY; // maximum number of empty cells of positions solved exactly
 
 	/**
 	 * Create a Greedy Monte Carlo player that simulates greedy play to depth 2.
@@ -46,20 +74,45 @@ public class GreedyMCPlayer implements PokerSquaresPlayer {
 		this.depthLimit = depthLimit;
 	}
 	
+	/**
+	 * Create a Greedy Monte Carlo player that simulates greedy play to a given depth limit on a given number of threads.
+	 * @param depthLimit depth limit for random greedy simulated play
+	 * @param numThreads number of simulation threads, including the calling thread
+	 */
+	public GreedyMCPlayer(int depthLimit, int numThreads) {
+		if (numThreads < 1)
+			throw new IllegalArgumentException("Number of threads must be positive: " + numThreads);
+		this.depthLimit = depthLimit;
+		this.numThreads = numThreads;
+	}
+	
+	/**
+	 * Set whether or not simulations are allocated to candidate plays by successive halving rather than evenly.
+	 * @param halving whether or not to select candidate plays by successive halving
+	 */
+	public void setSuccessiveHalving(boolean halving) {
+		this.halving = halving;
+	}
+	
+	/**
+	 * Set the maximum number of empty cells of positions in which plays are chosen by the exact endgame solver, when
+	 * its estimated cost fits half the move's time.
+	 * @param maxSolverEmpty maximum number of empty cells of positions solved exactly (0 to never solve)
+	 */
+	public void setMaxSolverEmpty(int maxSolverEmpty) {
+		this.maxSolverEmpty = maxSolverEmpty;
+	}
+	
 	/* (non-Javadoc)
 	 * @see PokerSquaresPlayer#init()
 	 */
 	@Override
 	public void init() { 
-		// clear grid
-		for (int row = 0; row < SIZE; row++)
-			for (int col = 0; col < SIZE; col++)
-				grid[row][col] = null;
-		// reset numPlays
-		numPlays = 0;
-		// (re)initialize list of play positions (row-major ordering)
-		for (int i = 0; i < NUM_POS; i++)
-			plays[i] = i;
+		for (Simulation simulation : simulations)
+			simulation.init();
+		if (solver != null)
+			solver.clear();
+		budget.reset();
 	}
 
 	/* (non-Javadoc)
@@ -77,131 +130,326 @@ public class GreedyMCPlayer implements PokerSquaresPlayer {
 		 *   After many such plays, the average score per simulated play is computed.  The play with the highest 
 		 *     average score is chosen (breaking ties randomly).   
 		 */
-		
-		// match simDeck to actual play event; in this way, all indices forward from the card contain a list of 
-		//   undealt Cards in some permutation.
-		int cardIndex = numPlays;
-		while (!card.equals(simDeck[cardIndex]))
-			cardIndex++;
-		simDeck[cardIndex] = simDeck[numPlays];
-		simDeck[numPlays] = card;
-		
-		if (numPlays < 24) { // not the forced last play
-			// compute average time per move evaluation
-			int remainingPlays = NUM_POS - numPlays; // ignores triviality of last play to keep a conservative margin for game completion
-			long millisPerPlay = millisRemaining / remainingPlays; // dividing time evenly with future getPlay() calls
-			long millisPerMoveEval = millisPerPlay / remainingPlays; // dividing time evenly across moves now considered
+		Simulation root = simulations[0];
+		int numPlays = root.numPlays;
+		budget.startMove(millisRemaining, numPlays); // allot this move its share of the remaining time
+		int bestPlay = root.plays[numPlays]; // the only empty position for the forced last play
+		int solvedPlay = getSolvedPlay(card, NUM_POS - numPlays);
+		if (solvedPlay >= 0) // exact endgame play
+			bestPlay = solvedPlay;
+		else if (numPlays < 24) { // not the forced last play
+			int remainingPlays = NUM_POS - numPlays;
 			// copy the play positions (row-major indices) that are empty
-			System.arraycopy(plays, numPlays, legalPlayLists[numPlays], 0, remainingPlays);
+			System.arraycopy(root.plays, numPlays, candidates, 0, remainingPlays);
+			for (Simulation simulation : simulations)
+				simulation.clearTotals(remainingPlays);
+			int numActive = remainingPlays;
+			for (int i = 0; i < numActive; i++)
+				active[i] = i;
+			int numRounds = 1; // with successive halving, one round per halving down to the final two candidates
+			if (halving)
+				for (int n = remainingPlays; n > 2; n = (n + 1) / 2)
+					numRounds++;
+			for (int round = 0; round < numRounds; round++) {
+				evaluate(card, numActive, round, numRounds);
+				if (round < numRounds - 1) { // drop the worse half
+					sortActive(numActive);
+					numActive = (numActive + 1) / 2;
+				}
+			}
 			double maxAverageScore = Double.NEGATIVE_INFINITY; // maximum average score found for moves so far
 			ArrayList<Integer> bestPlays = new ArrayList<Integer>(); // all plays yielding the maximum average score 
-			for (int i = 0; i < remainingPlays; i++) { // for each legal play position
-				int play = legalPlayLists[numPlays][i];
-				long startTime = System.currentTimeMillis();
-				long endTime = startTime + millisPerMoveEval; // compute when MC simulations should end
-				makePlay(card, play / SIZE, play % SIZE);  // play the card at the empty position
-				int simCount = 0;
-				int scoreTotal = 0;
-				while (System.currentTimeMillis() < endTime) { // perform as many MC simulations as possible through the allotted time
-					// Perform a Monte Carlo simulation of greedy play to the depth limit or game end, whichever comes first.
-					scoreTotal += simGreedyPlay(depthLimit);  // accumulate MC simulation scores
-					simCount++; // increment count of MC simulations
-				}
-				undoPlay(); // undo the play under evaluation
+			for (int j = 0; j < numActive; j++) { // for each remaining legal play position
+				int i = active[j];
 				// update (if necessary) the maximum average score and the list of best plays
-				double averageScore = (double) scoreTotal / simCount;
+				double averageScore = getAverageScore(i);
 				if (averageScore >= maxAverageScore) {
 					if (averageScore > maxAverageScore)
 						bestPlays.clear();
-					bestPlays.add(play);
+					bestPlays.add(candidates[i]);
 					maxAverageScore = averageScore;
 				}
 			}
-			int bestPlay = bestPlays.get(random.nextInt(bestPlays.size())); // choose a best play (breaking ties randomly)
-			// update our list of plays, recording the chosen play in its sequential position; all onward from numPlays are empty positions
-			int bestPlayIndex = numPlays;
-			while (plays[bestPlayIndex] != bestPlay)
-				bestPlayIndex++;
-			plays[bestPlayIndex] = plays[numPlays];
-			plays[numPlays] = bestPlay;
+			bestPlay = bestPlays.get(random.nextInt(bestPlays.size())); // choose a best play (breaking ties randomly)
 		}
-		int[] playPos = {plays[numPlays] / SIZE, plays[numPlays] % SIZE}; // decode it into row and column
+		int[] playPos = {bestPlay / SIZE, bestPlay % SIZE}; // decode it into row and column
 		makePlay(card, playPos[0], playPos[1]); // make the chosen play (not undoing this time)
+		budget.endMove();
 		return playPos; // return the chosen play
 	}
 
+	/**
+	 * Return the play of the card chosen by the exact endgame solver, if the position has few enough empty cells and
+	 * the solver's estimated cost fits half the move's time.  The solver gets the first half of the move; if it does
+	 * not finish, the rest of the move is divided anew, so that the fallback simulation keeps real time.
+	 * @param card card to play
+	 * @param numEmpty number of empty positions
+	 * @return the row-major index of the exact best play, or -1 if the position is not solved in time
+	 */
+	private int getSolvedPlay(Card card, int numEmpty) {
+		if (numEmpty < 2 || numEmpty > maxSolverEmpty || solver.getEstimatedNanos(numEmpty) > budget.getMoveNanos() / 2)
+			return -1;
+		int play = solver.getBestPlay(simulations[0].tracker.getState(), card.getCardId(), budget.getSliceDeadline(0, 2));
+		if (play < 0)
+			budget.divideRemainder();
+		return play;
+	}
+
+	/**
+	 * Return the average simulation score of the given candidate, merging the totals of all threads.
+	 * @param i candidate index
+	 * @return the average simulation score of the candidate
+	 */
+	private double getAverageScore(int i) {
+		long scoreTotal = 0;
+		long simCount = 0;
+		for (Simulation simulation : simulations) {
+			scoreTotal += simulation.scoreTotals[i];
+			simCount += simulation.simCounts[i];
+		}
+		return (double) scoreTotal / simCount;
+	}
+
+	/**
+	 * Sort the active candidates by decreasing average score.
+	 * @param numActive number of active candidates
+	 */
+	private void sortActive(int numActive) {
+		for (int j = 0; j < numActive; j++)
+			averageScores[active[j]] = getAverageScore(active[j]);
+		for (int j = 1; j < numActive; j++) { // insertion sort by decreasing average score
+			int i = active[j];
+			int k = j;
+			for (; k > 0 && averageScores[active[k - 1]] < averageScores[i]; k--)
+				active[k] = active[k - 1];
+			active[k] = i;
+		}
+	}
+
+	/**
+	 * Evaluate each of the given number of active candidate plays of the card by Monte Carlo simulation on all
+	 * threads, dividing the round's share of the move's time evenly across the active candidates.
+	 * @param card card to play
+	 * @param numActive number of active candidate plays
+	 * @param round round number in [0, numRounds)
+	 * @param numRounds number of rounds dividing the move's time evenly
+	 */
+	private void evaluate(final Card card, final int numActive, final int round, final int numRounds) {
+		if (numThreads == 1) {
+			simulations[0].evaluate(card, numActive, round, numRounds, false);
+			return;
+		}
+		ArrayList<Future<?>> results = new ArrayList<Future<?>>(simulations.length - 1);
+		for (int t = 1; t < simulations.length; t++) {
+			final Simulation simulation = simulations[t];
+			results.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					simulation.evaluate(card, numActive, round, numRounds, true);
+					return null;
+				}
+			}));
+		}
+		simulations[0].evaluate(card, numActive, round, numRounds, true);
+		try {
+			for (Future<?> result : results)
+				result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while evaluating plays", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Simulation failed", e.getCause());
+		}
+	}
+
 	/**
 	 * From the chosen play, perform simulated Card draws and greedy placement (depthLimit) iterations forward 
 	 * and return the resulting grid score.
 	 * @param depthLimit - how many simulated greedy plays to perform
 	 * @return resulting grid score after greedy MC simulation to given depthLimit
 	 */
-	private int simGreedyPlay(int depthLimit) {
-		if (depthLimit == 0) { // with zero depth limit, return current score
-			return system.getScore(grid);
+	int simGreedyPlay(int depthLimit) {
+		return simulations[0].simGreedyPlay(depthLimit);
+	}
+	
+	@Override
+	public void makePlay(Card card, int row, int col) {
+		for (Simulation simulation : simulations)
+			simulation.makePlay(row * SIZE + col, card.getCardId());
+	}
+
+	public void undoPlay() { // undo the previous play
+		for (Simulation simulation : simulations)
+			simulation.undoPlay();
+	}
+
+	/**
+	 * Simulation - the simulation context of one thread: its own copy of the plays, deck, and grid score, kept in step
+	 * with the actual game, on which it evaluates candidate plays.  Rollouts work on primitive card ids and cell
+	 * indices only: index maps make each placement and its undo O(1), ties are broken by reservoir sampling, and the
+	 * score tracker rescores only the row and column of each placement, so simulations allocate nothing.
+	 */
+	private class Simulation {
+		private FastRandom random = new FastRandom(); // pseudorandom number generator for Monte Carlo simulation 
+		private int[] plays = new int[NUM_POS]; // positions of plays so far (index 0 through numPlays - 1) recorded as integers using row-major indices.
+		// row-major indices: play (r, c) is recorded as a single integer r * SIZE + c (See http://en.wikipedia.org/wiki/Row-major_order)
+		// From plays index [numPlays] onward, we maintain a list of yet unplayed positions.
+		private int[] playIndex = new int[NUM_POS]; // index of each position in plays
+		private int numPlays = 0; // number of Cards played into the grid so far
+		private ScoreTracker tracker = new ScoreTracker(system); // incrementally maintained score of grid
+		private int[] simDeck = new int[NUM_CARDS]; // ids of all cards. As we learn the index of cards in the play deck,
+		                                            // we swap each dealt card to its correct index.  Thus, from index numPlays 
+													// onward, we maintain a list of undealt cards for MC simulation.
+		private int[] deckIndex = new int[NUM_CARDS]; // index of each card id in simDeck
+		private long[] scoreTotals = new long[NUM_POS]; // total simulation score of each candidate of the current move
+		private int[] simCounts = new int[NUM_POS]; // number of simulations of each candidate of the current move
+
+		/**
+		 * Create a simulation context with all positions empty and all cards undealt.
+		 */
+		Simulation() {
+			for (int i = 0; i < NUM_CARDS; i++) {
+				simDeck[i] = i;
+				deckIndex[i] = i;
+			}
+			init();
+		}
+
+		/**
+		 * Clear the grid and plays for a new game.
+		 */
+		void init() {
+			tracker.clear();
+			// reset numPlays
+			numPlays = 0;
+			// (re)initialize list of play positions (row-major ordering)
+			for (int i = 0; i < NUM_POS; i++) {
+				plays[i] = i;
+				playIndex[i] = i;
+			}
+		}
+
+		/**
+		 * Clear the simulation totals of the given number of candidates at the start of a move.
+		 * @param numCandidates number of candidate plays
+		 */
+		void clearTotals(int numCandidates) {
+			for (int i = 0; i < numCandidates; i++) {
+				scoreTotals[i] = 0;
+				simCounts[i] = 0;
+			}
+		}
+
+		/**
+		 * Simulate each active candidate play of the card during its slice of the round's share of the move's time,
+		 * adding to the total score and number of simulations of each candidate.
+		 * @param card card to play
+		 * @param numActive number of active candidate plays
+		 * @param round round number in [0, numRounds)
+		 * @param numRounds number of rounds dividing the move's time evenly
+		 * @param shared whether or not other threads share the budget, in which case the clock is read directly
+		 */
+		void evaluate(Card card, int numActive, int round, int numRounds, boolean shared) {
+			int cardId = card.getCardId();
+			for (int j = 0; j < numActive; j++) { // for each active legal play position
+				int i = active[j];
+				int play = candidates[i];
+				int slice = round * numActive + j; // dividing the round's time evenly across moves now considered
+				long deadline = budget.getSliceDeadline(slice, numRounds * numActive);
+				if (!shared)
+					budget.startSlice(slice, numRounds * numActive);
+				makePlay(play, cardId);  // play the card at the empty position
+				int simCount = 0;
+				long scoreTotal = 0;
+				do { // perform as many MC simulations as possible through the allotted time
+					// Perform a Monte Carlo simulation of greedy play to the depth limit or game end, whichever comes first.
+					scoreTotal += simGreedyPlay(depthLimit);  // accumulate MC simulation scores
+					simCount++; // increment count of MC simulations
+				} while (shared ? (simCount % TimeBudget.DEFAULT_CHECK_INTERVAL != 0 || System.nanoTime() < deadline)
+						: !budget.isExpired());
+				undoPlay(); // undo the play under evaluation
+				scoreTotals[i] += scoreTotal;
+				simCounts[i] += simCount;
+			}
 		}
-		else { // up to the non-zero depth limit or to game end, iteratively make the given number of greedy plays o
-			int score = Integer.MIN_VALUE;
-			int maxScore = Integer.MIN_VALUE;
-			int depth = Math.min(depthLimit, NUM_POS - numPlays); // compute real depth limit, taking into account game end
-			for (int d = 0; d < depth; d++) {
-				// generate a random card draw
-				int c = random.nextInt(NUM_CARDS - numPlays) + numPlays;
-				Card card = simDeck[c];
-				// iterate through legal plays and choose the best greedy play (see similar approach in getPlay)
-				int remainingPlays = NUM_POS - numPlays;
-				System.arraycopy(plays, numPlays, legalPlayLists[numPlays], 0, remainingPlays);
-				maxScore = Integer.MIN_VALUE;
-				ArrayList<Integer> bestPlays = new ArrayList<Integer>();
-				for (int i = 0; i < remainingPlays; i++) {
-					int play = legalPlayLists[numPlays][i];
-					makePlay(card, play / SIZE, play % SIZE);
-					score = system.getScore(grid);
-					if (score >= maxScore) {
-						if (score > maxScore)
-							bestPlays.clear();
-						bestPlays.add(play);
-						maxScore = score;
+
+		/**
+		 * From the chosen play, perform simulated Card draws and greedy placement (depthLimit) iterations forward 
+		 * and return the resulting grid score.
+		 * @param depthLimit - how many simulated greedy plays to perform
+		 * @return resulting grid score after greedy MC simulation to given depthLimit
+		 */
+		int simGreedyPlay(int depthLimit) {
+			if (depthLimit == 0) { // with zero depth limit, return current score
+				return tracker.getScore();
+			}
+			else { // up to the non-zero depth limit or to game end, iteratively make the given number of greedy plays
+				int maxScore = Integer.MIN_VALUE;
+				int depth = Math.min(depthLimit, NUM_POS - numPlays); // compute real depth limit, taking into account game end
+				for (int d = 0; d < depth; d++) {
+					// generate a random card draw
+					int cardId = simDeck[random.nextInt(NUM_CARDS - numPlays) + numPlays];
+					// iterate through legal plays and choose the best greedy play, breaking ties by reservoir sampling
+					maxScore = Integer.MIN_VALUE;
+					int bestPlay = -1;
+					int numBest = 0; // number of plays yielding maxScore so far
+					int currentScore = tracker.getScore();
+					for (int i = numPlays; i < NUM_POS; i++) {
+						int play = plays[i];
+						int score = currentScore + tracker.scoreDelta(play, cardId); // rescores only the play's row and column
+						if (score > maxScore) {
+							maxScore = score;
+							bestPlay = play;
+							numBest = 1;
+						}
+						else if (score == maxScore && random.nextInt(++numBest) == 0)
+							bestPlay = play;
 					}
+					makePlay(bestPlay, cardId);
+				}
+				// At this point, the last maxScore value is the end value of this Monte Carlo situation.
+				// Undo MC plays.
+				for (int d = 0; d < depth; d++) {
 					undoPlay();
 				}
-				int bestPlay = bestPlays.get(random.nextInt(bestPlays.size()));
-				makePlay(card, bestPlay / SIZE, bestPlay % SIZE);
-			}
-			// At this point, the last maxScore value is the end value of this Monte Carlo situation.
-			// Undo MC plays.
-			for (int d = 0; d < depth; d++) {
-				undoPlay();
+				return maxScore;
 			}
-			return maxScore;
 		}
-	}
-	
-	public void makePlay(Card card, int row, int col) {
-		// match simDeck to event
-		int cardIndex = numPlays;
-		while (!card.equals(simDeck[cardIndex]))
-			cardIndex++;
-		simDeck[cardIndex] = simDeck[numPlays];
-		simDeck[numPlays] = card;
-		
-		// update plays to reflect chosen play in sequence
-		grid[row][col] = card;
-		int play = row * SIZE + col;
-		int j = 0;
-		while (plays[j] != play)
-			j++;
-		plays[j] = plays[numPlays];
-		plays[numPlays] = play;
-		
-		// increment the number of plays taken
-		numPlays++;
-	}
 
-	public void undoPlay() { // undo the previous play
-		numPlays--;
-		int play = plays[numPlays];
-		grid[play / SIZE][play % SIZE] = null;	
+		/**
+		 * Play the given card at the given empty position.
+		 * @param play row-major index of an empty position
+		 * @param cardId id of an undealt card
+		 */
+		void makePlay(int play, int cardId) {
+			// match simDeck to event
+			swap(simDeck, deckIndex, deckIndex[cardId], numPlays);
+			// update plays to reflect chosen play in sequence
+			swap(plays, playIndex, playIndex[play], numPlays);
+			tracker.place(play, cardId);
+			// increment the number of plays taken
+			numPlays++;
+		}
+
+		void undoPlay() { // undo the previous play
+			numPlays--;
+			tracker.undo();
+		}
+
+		/**
+		 * Swap two entries of a list, updating the index map of its values.
+		 * @param list list of values
+		 * @param index index of each value in the list
+		 * @param i first list index
+		 * @param j second list index
+		 */
+		private void swap(int[] list, int[] index, int i, int j) {
+			int value = list[i];
+			list[i] = list[j];
+			list[j] = value;
+			index[list[i]] = i;
+			index[value] = j;
+		}
 	}
 
 	/* (non-Javadoc)
@@ -210,6 +458,10 @@ public class GreedyMCPlayer implements PokerSquaresPlayer {
 	@Override
 	public void setPointSystem(PokerSquaresPointSystem system, long millis) {
 		this.system = system;
+		solver = new EndgameSolver(system);
+		simulations = new Simulation[numThreads];
+		for (int t = 0; t < numThreads; t++)
+			simulations[t] = new Simulation();
 	}
 
 	/* (non-Javadoc)
@@ -217,7 +469,8 @@ public class GreedyMCPlayer implements PokerSquaresPlayer {
 	 */
 	@Override
 	public String getName() {
-		return "GreedyMCPlayerDepth" + depthLimit;
+		return "GreedyMCPlayerDepth" + depthLimit + (numThreads > 1 ? "Threads" + numThreads : "")
+				+ (halving ? "Halving" : "");
 	}
 
 	/**
@@ -0,0 +1,392 @@
+/**
+ * GridState - A primitive representation of a Poker Squares grid with incrementally maintained row and column
+ * line state.
+ *
+ * Cells are identified by row-major indices: cell (r, c) is the single integer r * SIZE + c.  Cards are identified
+ * by their card identification numbers (see {@link Card#getCardId()}).  Lines are identified by the integers 0 through
+ * SIZE - 1 for rows followed by SIZE through 2 * SIZE - 1 for columns, the same ordering used by
+ * {@link PokerSquaresPointSystem#getHandScores(Card[][])}.
+ *
+ * For each line, the state keeps a 13-bit rank presence mask, per-rank counts packed 4 bits per rank into a long,
+ * per-suit counts packed 3 bits per suit into an int, a SIZE-bit occupancy mask of the line positions filled, and
+ * the {@link HandClassifier} rank key sum.  Each {@link #place(int, int)} and {@link #undo()} updates exactly one row
+ * and one column in constant time.
+ *
+ * The state also keeps a 64-bit Zobrist hash: the exclusive or of a fixed random key for each (cell, card id)
+ * placement.  Grids reached by different placement orders have the same hash, and since the undealt cards are those
+ * not placed, the hash also identifies the remaining deck.  Keys of the card to be placed next are provided so that
+ * searches can also distinguish states by the card in hand (see {@link TranspositionTable}).
+ */
+public class GridState {
+
+	public static final int SIZE = PokerSquares.SIZE; // number of rows/columns in square grid
+	public static final int NUM_CELLS = SIZE * SIZE; // number of cells in square grid
+	public static final int NUM_LINES = 2 * SIZE; // number of scored lines (rows, then columns)
+	public static final int EMPTY = -1; // card id of an empty cell
+
+	private static final int RANK_COUNT_BITS = 4; // bits per rank count in packed rank counts
+	private static final int SUIT_COUNT_BITS = 3; // bits per suit count in packed suit counts
+
+	private static final int[] CARD_RANKS = new int[Card.NUM_CARDS]; // ranks indexed by card id
+	private static final int[] CARD_SUITS = new int[Card.NUM_CARDS]; // suits indexed by card id
+
+	private static final long[] PLACEMENT_KEYS = new long[NUM_CELLS * Card.NUM_CARDS]; // Zobrist keys indexed by cell * NUM_CARDS + card id
+	private static final long[] CARD_KEYS = new long[Card.NUM_CARDS]; // Zobrist keys of the card to be placed next, indexed by card id
+
+	static {
+		for (int cardId = 0; cardId < Card.NUM_CARDS; cardId++) {
+			CARD_RANKS[cardId] = Card.getCard(cardId).getRank();
+			CARD_SUITS[cardId] = Card.getCard(cardId).getSuit();
+		}
+		FastRandom random = new FastRandom(0x5A0B1D15L); // fixed seed, so hashes are the same in every process
+		for (int i = 0; i < PLACEMENT_KEYS.length; i++)
+			PLACEMENT_KEYS[i] = random.nextLong();
+		for (int cardId = 0; cardId < Card.NUM_CARDS; cardId++)
+			CARD_KEYS[cardId] = random.nextLong();
+	}
+
+	private final int[] cards = new int[NUM_CELLS]; // card ids indexed by cell, EMPTY for empty cells
+	private final int[] history = new int[NUM_CELLS]; // cells in the order they were filled
+	private int numPlaced = 0; // number of cards placed so far
+	private int occupancy = 0; // NUM_CELLS-bit mask of filled cells
+	private long dealtCards = 0L; // NUM_CARDS-bit mask of placed card ids
+	private long hash = 0L; // Zobrist hash of the placements
+
+	private final int[] rankMasks = new int[NUM_LINES]; // per line, bit r set if rank r is present
+	private final long[] rankCounts = new long[NUM_LINES]; // per line, rank counts packed RANK_COUNT_BITS per rank
+	private final int[] suitCounts = new int[NUM_LINES]; // per line, suit counts packed SUIT_COUNT_BITS per suit
+	private final int[] lineOccupancy = new int[NUM_LINES]; // per line, bit i set if line position i is filled
+	private final int[] rankKeys = new int[NUM_LINES]; // per line, HandClassifier rank key sum
+
+	/**
+	 * Create an empty grid state.
+	 */
+	public GridState() {
+		clear();
+	}
+
+	/**
+	 * Create a grid state from the given Card grid.
+	 * @param grid 2D Card array representing play grid (null for empty positions)
+	 * @return grid state with the cards of the given grid placed in row-major order
+	 */
+	public static GridState fromGrid(Card[][] grid) {
+		GridState state = new GridState();
+		state.setGrid(grid);
+		return state;
+	}
+
+	/**
+	 * Return the row line of the given cell.
+	 * @param cell row-major cell index
+	 * @return the row line of the given cell
+	 */
+	public static int getRowLine(int cell) {
+		return cell / SIZE;
+	}
+
+	/**
+	 * Return the column line of the given cell.
+	 * @param cell row-major cell index
+	 * @return the column line of the given cell
+	 */
+	public static int getColumnLine(int cell) {
+		return SIZE + cell % SIZE;
+	}
+
+	/**
+	 * Remove all cards from the grid.
+	 */
+	public void clear() {
+		for (int cell = 0; cell < NUM_CELLS; cell++)
+			cards[cell] = EMPTY;
+		for (int line = 0; line < NUM_LINES; line++) {
+			rankMasks[line] = 0;
+			rankCounts[line] = 0L;
+			suitCounts[line] = 0;
+			lineOccupancy[line] = 0;
+			rankKeys[line] = 0;
+		}
+		numPlaced = 0;
+		occupancy = 0;
+		dealtCards = 0L;
+		hash = 0L;
+	}
+
+	/**
+	 * Replace the contents of this state with the given Card grid.  Cards are placed in row-major order.
+	 * @param grid 2D Card array representing play grid (null for empty positions)
+	 */
+	public void setGrid(Card[][] grid) {
+		clear();
+		for (int row = 0; row < SIZE; row++)
+			for (int col = 0; col < SIZE; col++)
+				if (grid[row][col] != null)
+					place(row * SIZE + col, grid[row][col].getCardId());
+	}
+
+	/**
+	 * Replace the contents of this state with a copy of the given state, including its placement history.
+	 * @param other grid state to copy
+	 */
+	public void copyFrom(GridState other) {
+		System.arraycopy(other.cards, 0, cards, 0, NUM_CELLS);
+		System.arraycopy(other.history, 0, history, 0, NUM_CELLS);
+		System.arraycopy(other.rankMasks, 0, rankMasks, 0, NUM_LINES);
+		System.arraycopy(other.rankCounts, 0, rankCounts, 0, NUM_LINES);
+		System.arraycopy(other.suitCounts, 0, suitCounts, 0, NUM_LINES);
+		System.arraycopy(other.lineOccupancy, 0, lineOccupancy, 0, NUM_LINES);
+		System.arraycopy(other.rankKeys, 0, rankKeys, 0, NUM_LINES);
+		numPlaced = other.numPlaced;
+		occupancy = other.occupancy;
+		dealtCards = other.dealtCards;
+		hash = other.hash;
+	}
+
+	/**
+	 * Return a new Card grid with the contents of this state.
+	 * @return a new 2D Card array with the contents of this state (null for empty positions)
+	 */
+	public Card[][] toGrid() {
+		Card[][] grid = new Card[SIZE][SIZE];
+		copyTo(grid);
+		return grid;
+	}
+
+	/**
+	 * Copy the contents of this state into the given Card grid.
+	 * @param grid 2D Card array to fill (null for empty positions)
+	 */
+	public void copyTo(Card[][] grid) {
+		for (int cell = 0; cell < NUM_CELLS; cell++)
+			grid[cell / SIZE][cell % SIZE] = cards[cell] == EMPTY ? null : Card.getCard(cards[cell]);
+	}
+
+	/**
+	 * Place the given card in the given empty cell.
+	 * @param cell row-major cell index of an empty cell
+	 * @param cardId card identification number of a card not yet placed
+	 */
+	public void place(int cell, int cardId) {
+		cards[cell] = cardId;
+		history[numPlaced++] = cell;
+		occupancy |= 1 << cell;
+		dealtCards |= 1L << cardId;
+		hash ^= PLACEMENT_KEYS[cell * Card.NUM_CARDS + cardId];
+		int row = cell / SIZE;
+		int col = cell % SIZE;
+		addToLine(row, col, cardId);
+		addToLine(SIZE + col, row, cardId);
+	}
+
+	/**
+	 * Undo the most recent placement.
+	 * @return the row-major cell index emptied
+	 */
+	public int undo() {
+		int cell = history[--numPlaced];
+		int cardId = cards[cell];
+		cards[cell] = EMPTY;
+		occupancy &= ~(1 << cell);
+		dealtCards &= ~(1L << cardId);
+		hash ^= PLACEMENT_KEYS[cell * Card.NUM_CARDS + cardId];
+		int row = cell / SIZE;
+		int col = cell % SIZE;
+		removeFromLine(row, col, cardId);
+		removeFromLine(SIZE + col, row, cardId);
+		return cell;
+	}
+
+	private void addToLine(int line, int position, int cardId) {
+		int rank = CARD_RANKS[cardId];
+		rankMasks[line] |= 1 << rank;
+		rankCounts[line] += 1L << (RANK_COUNT_BITS * rank);
+		suitCounts[line] += 1 << (SUIT_COUNT_BITS * CARD_SUITS[cardId]);
+		lineOccupancy[line] |= 1 << position;
+		rankKeys[line] += HandClassifier.CARD_RANK_KEYS[cardId];
+	}
+
+	private void removeFromLine(int line, int position, int cardId) {
+		int rank = CARD_RANKS[cardId];
+		rankCounts[line] -= 1L << (RANK_COUNT_BITS * rank);
+		if (((rankCounts[line] >>> (RANK_COUNT_BITS * rank)) & 0xF) == 0)
+			rankMasks[line] &= ~(1 << rank);
+		suitCounts[line] -= 1 << (SUIT_COUNT_BITS * CARD_SUITS[cardId]);
+		lineOccupancy[line] &= ~(1 << position);
+		rankKeys[line] -= HandClassifier.CARD_RANK_KEYS[cardId];
+	}
+
+	/**
+	 * Return the card id in the given cell.
+	 * @param cell row-major cell index
+	 * @return the card id in the given cell, or EMPTY
+	 */
+	public int getCardId(int cell) {
+		return cards[cell];
+	}
+
+	/**
+	 * Return the Card in the given cell.
+	 * @param cell row-major cell index
+	 * @return the Card in the given cell, or null if empty
+	 */
+	public Card getCard(int cell) {
+		return cards[cell] == EMPTY ? null : Card.getCard(cards[cell]);
+	}
+
+	/**
+	 * Return whether or not the given cell is empty.
+	 * @param cell row-major cell index
+	 * @return whether or not the given cell is empty
+	 */
+	public boolean isEmpty(int cell) {
+		return (occupancy & (1 << cell)) == 0;
+	}
+
+	/**
+	 * Return the number of cards placed so far.
+	 * @return the number of cards placed so far
+	 */
+	public int getNumPlaced() {
+		return numPlaced;
+	}
+
+	/**
+	 * Return the cell filled by the given placement.
+	 * @param index placement index in range [0, getNumPlaced() - 1]
+	 * @return the row-major cell index filled by the given placement
+	 */
+	public int getPlacedCell(int index) {
+		return history[index];
+	}
+
+	/**
+	 * Return a NUM_CELLS-bit mask of filled cells, with bit i set if row-major cell i is filled.
+	 * @return a mask of filled cells
+	 */
+	public int getOccupancy() {
+		return occupancy;
+	}
+
+	/**
+	 * Return a NUM_CARDS-bit mask of placed cards, with bit i set if the card with id i has been placed.
+	 * @return a mask of placed cards
+	 */
+	public long getDealtCards() {
+		return dealtCards;
+	}
+
+	/**
+	 * Return the Zobrist hash of the placements, which is the same for every placement order of the same grid.
+	 * @return the Zobrist hash of the placements
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	/**
+	 * Return the Zobrist key of placing the given card in the given cell; the exclusive or of the current hash and
+	 * this key is the hash after the placement.
+	 * @param cell row-major cell index
+	 * @param cardId card identification number
+	 * @return the Zobrist key of the placement
+	 */
+	public static long getPlacementKey(int cell, int cardId) {
+		return PLACEMENT_KEYS[cell * Card.NUM_CARDS + cardId];
+	}
+
+	/**
+	 * Return the Zobrist key of the given card to be placed next; the exclusive or of the current hash and this key
+	 * identifies the state with the card in hand.
+	 * @param cardId card identification number
+	 * @return the Zobrist key of the card to be placed next
+	 */
+	public static long getCardKey(int cardId) {
+		return CARD_KEYS[cardId];
+	}
+
+	/**
+	 * Return the 13-bit rank presence mask of the given line.
+	 * @param line line index (rows 0 through SIZE - 1, then columns)
+	 * @return the rank presence mask of the given line, with bit r set if rank r is present
+	 */
+	public int getRankMask(int line) {
+		return rankMasks[line];
+	}
+
+	/**
+	 * Return the rank counts of the given line packed 4 bits per rank, with the count of rank r in bits 4r to 4r + 3.
+	 * @param line line index (rows 0 through SIZE - 1, then columns)
+	 * @return the packed rank counts of the given line
+	 */
+	public long getRankCounts(int line) {
+		return rankCounts[line];
+	}
+
+	/**
+	 * Return the number of cards of the given rank in the given line.
+	 * @param line line index (rows 0 through SIZE - 1, then columns)
+	 * @param rank Card rank
+	 * @return the number of cards of the given rank in the given line
+	 */
+	public int getRankCount(int line, int rank) {
+		return (int) (rankCounts[line] >>> (RANK_COUNT_BITS * rank)) & 0xF;
+	}
+
+	/**
+	 * Return the suit counts of the given line packed 3 bits per suit, with the count of suit s in bits 3s to 3s + 2.
+	 * This is also the {@link HandClassifier} suit key sum of the line.
+	 * @param line line index (rows 0 through SIZE - 1, then columns)
+	 * @return the packed suit counts of the given line
+	 */
+	public int getSuitCounts(int line) {
+		return suitCounts[line];
+	}
+
+	/**
+	 * Return the number of cards of the given suit in the given line.
+	 * @param line line index (rows 0 through SIZE - 1, then columns)
+	 * @param suit Card suit
+	 * @return the number of cards of the given suit in the given line
+	 */
+	public int getSuitCount(int line, int suit) {
+		return (suitCounts[line] >>> (SUIT_COUNT_BITS * suit)) & 0x7;
+	}
+
+	/**
+	 * Return the SIZE-bit occupancy mask of the given line, with bit i set if the ith position of the line is filled.
+	 * Row positions are columns; column positions are rows.
+	 * @param line line index (rows 0 through SIZE - 1, then columns)
+	 * @return the occupancy mask of the given line
+	 */
+	public int getLineOccupancy(int line) {
+		return lineOccupancy[line];
+	}
+
+	/**
+	 * Return the number of cards in the given line.
+	 * @param line line index (rows 0 through SIZE - 1, then columns)
+	 * @return the number of cards in the given line
+	 */
+	public int getLineCount(int line) {
+		return Integer.bitCount(lineOccupancy[line]);
+	}
+
+	/**
+	 * Return the {@link HandClassifier} rank key sum of the given line.
+	 * @param line line index (rows 0 through SIZE - 1, then columns)
+	 * @return the rank key sum of the given line
+	 */
+	public int getRankKey(int line) {
+		return rankKeys[line];
+	}
+
+	/**
+	 * Return the Poker hand classification identification number of the given line.
+	 * @param line line index (rows 0 through SIZE - 1, then columns)
+	 * @return the classification identification number of the given line
+	 */
+	public int getPokerHandId(int line) {
+		return HandClassifier.getPokerHandId(rankKeys[line], suitCounts[line]);
+	}
+}
@@ -0,0 +1,228 @@
+import java.util.Arrays;
+
+/**
+ * HandClassifier - A table-driven classifier for complete or partial five-card Poker Squares hands.
+ *
+ * Each card contributes an additive rank key and an additive suit key.  Rank keys are chosen so that the sum of
+ * the rank keys of any hand of at most five cards (with at most four cards per rank) uniquely identifies the
+ * multiset of ranks in the hand.  Suit keys pack the per-suit counts into 3-bit fields.  Classification is then
+ * one lookup in a table indexed by the rank key sum and one lookup in a table indexed by the suit key sum, with
+ * no allocation.  Since keys are additive, they may also be maintained incrementally as cards are added to and
+ * removed from a hand.
+ *
+ * The tables are derived from {@link PokerHand#getPokerHand(Card[])}, which remains the reference implementation.
+ */
+public final class HandClassifier {
+
+	/**
+	 * the number of cards in a hand classified by this classifier
+	 */
+	public static final int HAND_SIZE = PokerSquares.SIZE;
+
+	/**
+	 * the smallest increasing rank keys such that the sums of rank keys of hands with at most five cards
+	 * (at most four cards per rank) are unique.  These were found by greedy search.
+	 */
+	private static final int[] RANK_KEYS = {1, 5, 22, 94, 312, 992, 2422, 5624, 12522, 19998, 43258, 79415, 148432};
+	private static final int SUIT_BITS = 3; // bits per suit count in a suit key
+	private static final int RANK_TABLE_SIZE = 4 * RANK_KEYS[Card.NUM_RANKS - 1] + RANK_KEYS[Card.NUM_RANKS - 2] + 1; // maximum rank key sum + 1
+	private static final int SUIT_TABLE_SIZE = 1 << (SUIT_BITS * Card.NUM_SUITS); // number of distinct suit key sums
+	private static final PokerHand[] HANDS = PokerHand.values(); // Poker hands indexed by classification id
+
+	static final int[] CARD_RANK_KEYS = new int[Card.NUM_CARDS]; // rank keys indexed by card id
+	static final int[] CARD_SUIT_KEYS = new int[Card.NUM_CARDS]; // suit keys indexed by card id
+
+	// Classification ids indexed by rank key sum.  The low 4 bits hold the classification of hands that are not
+	// flushes; the high 4 bits hold the classification of the same ranks if all five cards share a suit.
+	private static final byte[] rankTable = new byte[RANK_TABLE_SIZE];
+	private static final boolean[] flushTable = new boolean[SUIT_TABLE_SIZE]; // whether or not a suit key sum is a flush
+
+	static {
+		for (int cardId = 0; cardId < Card.NUM_CARDS; cardId++) {
+			Card card = Card.getCard(cardId);
+			CARD_RANK_KEYS[cardId] = RANK_KEYS[card.getRank()];
+			CARD_SUIT_KEYS[cardId] = suitKey(card.getSuit());
+		}
+		for (int suit = 0; suit < Card.NUM_SUITS; suit++)
+			flushTable[HAND_SIZE * suitKey(suit)] = true;
+		fillRankTable(0, 0, new int[HAND_SIZE], 0);
+	}
+
+	private HandClassifier() {
+	}
+
+	/**
+	 * Recursively enumerate all rank multisets of at most HAND_SIZE cards with at most NUM_SUITS cards per rank,
+	 * classifying a representative hand for each with the reference classifier.
+	 * @param rank next rank to consider
+	 * @param key rank key sum of the ranks chosen so far
+	 * @param ranks ranks chosen so far
+	 * @param numCards number of ranks chosen so far
+	 */
+	private static void fillRankTable(int rank, int key, int[] ranks, int numCards) {
+		if (rank == Card.NUM_RANKS) {
+			Card[] hand = new Card[HAND_SIZE];
+			boolean distinct = true;
+			for (int i = 0; i < numCards; i++) {
+				int suit = 0; // repeated ranks get successive suits
+				for (int j = 0; j < i; j++)
+					if (ranks[j] == ranks[i])
+						suit++;
+				distinct &= suit == 0;
+				hand[i] = Card.getCard(suit * Card.NUM_RANKS + ranks[i]);
+			}
+			int flushId = 0;
+			if (numCards == HAND_SIZE && distinct) {
+				flushId = PokerHand.getPokerHandId(hand); // all clubs
+				hand[HAND_SIZE - 1] = Card.getCard(Card.NUM_RANKS + ranks[HAND_SIZE - 1]); // break the flush
+			}
+			rankTable[key] = (byte) (flushId << 4 | PokerHand.getPokerHandId(hand));
+			return;
+		}
+		for (int count = 0; count <= Card.NUM_SUITS && numCards + count <= HAND_SIZE; count++) {
+			for (int i = 0; i < count; i++)
+				ranks[numCards + i] = rank;
+			fillRankTable(rank + 1, key + count * RANK_KEYS[rank], ranks, numCards + count);
+		}
+	}
+
+	/**
+	 * Return the suit key of the given suit.
+	 * @param suit Card suit. Should be in range [0, NUM_SUITS - 1].
+	 * @return the suit key of the given suit
+	 */
+	private static int suitKey(int suit) {
+		return 1 << (SUIT_BITS * suit);
+	}
+
+	/**
+	 * Return the additive rank key of the card with the given identification number.
+	 * @param cardId card identification number
+	 * @return the additive rank key of the given card
+	 */
+	public static int getRankKey(int cardId) {
+		return CARD_RANK_KEYS[cardId];
+	}
+
+	/**
+	 * Return the additive suit key of the card with the given identification number.
+	 * @param cardId card identification number
+	 * @return the additive suit key of the given card
+	 */
+	public static int getSuitKey(int cardId) {
+		return CARD_SUIT_KEYS[cardId];
+	}
+
+	/**
+	 * Return the number of entries in the table indexed by rank key sums.
+	 * @return the number of entries in the table indexed by rank key sums
+	 */
+	public static int getRankTableSize() {
+		return RANK_TABLE_SIZE;
+	}
+
+	/**
+	 * Return the classification identification number of a hand with the given rank key sum that is not a flush.
+	 * @param rankKey sum of the rank keys of the cards of a hand
+	 * @return classification identification number of a hand with the given rank key sum that is not a flush
+	 */
+	public static int getRankClass(int rankKey) {
+		return rankTable[rankKey] & 0xF;
+	}
+
+	/**
+	 * Return the classification identification number of a five-card hand with the given rank key sum that is a
+	 * flush.  The result is meaningless for rank key sums that cannot be a flush.
+	 * @param rankKey sum of the rank keys of the cards of a hand
+	 * @return classification identification number of a flush with the given rank key sum
+	 */
+	public static int getFlushClass(int rankKey) {
+		return (rankTable[rankKey] & 0xFF) >> 4;
+	}
+
+	/**
+	 * Return whether or not a hand with the given suit key sum is a flush.
+	 * @param suitKey sum of the suit keys of the cards of a hand
+	 * @return whether or not a hand with the given suit key sum is a flush
+	 */
+	public static boolean isFlush(int suitKey) {
+		return flushTable[suitKey];
+	}
+
+	/**
+	 * Return the classification identification number of a hand with the given rank and suit key sums.
+	 * @param rankKey sum of the rank keys of the cards of a hand
+	 * @param suitKey sum of the suit keys of the cards of a hand
+	 * @return classification identification number of the hand
+	 */
+	public static int getPokerHandId(int rankKey, int suitKey) {
+		return flushTable[suitKey] ? (rankTable[rankKey] & 0xFF) >> 4 : rankTable[rankKey] & 0xF;
+	}
+
+	/**
+	 * Given a Card array (possibly with null values) classifies the current Poker hand and returns the classification
+	 * identification number.  Equivalent to {@link PokerHand#getPokerHandId(Card[])}.
+	 * @param hand - a Poker hand represented as an array of Card objects which may contain null values
+	 * @return classification identification number of the given Poker hand
+	 */
+	public static int getPokerHandId(Card[] hand) {
+		if (hand.length != HAND_SIZE) // tables only cover five-card hands
+			return PokerHand.getPokerHandId(hand);
+		int rankKey = 0;
+		int suitKey = 0;
+		for (Card card : hand)
+			if (card != null) {
+				int cardId = card.getCardId();
+				rankKey += CARD_RANK_KEYS[cardId];
+				suitKey += CARD_SUIT_KEYS[cardId];
+			}
+		return getPokerHandId(rankKey, suitKey);
+	}
+
+	/**
+	 * Given a Card array (possibly with null values) classifies the current Poker hand and returns the classification.
+	 * Equivalent to {@link PokerHand#getPokerHand(Card[])}.
+	 * @param hand - a Poker hand represented as an array of Card objects which may contain null values
+	 * @return classification of the given Poker hand
+	 */
+	public static PokerHand getPokerHand(Card[] hand) {
+		return HANDS[getPokerHandId(hand)];
+	}
+
+	/**
+	 * Exhaustively check that this classifier agrees with the reference classifier for every hand of
+	 * 0 through 5 cards.
+	 * @param args (not used)
+	 */
+	public static void main(String[] args) {
+		Card[] deck = Card.getAllCards();
+		long[] checked = new long[HAND_SIZE + 1];
+		long mismatches = 0;
+		int[] indices = new int[HAND_SIZE];
+		for (int numCards = 0; numCards <= HAND_SIZE; numCards++) {
+			for (int i = 0; i < numCards; i++)
+				indices[i] = i;
+			while (true) {
+				Card[] hand = new Card[HAND_SIZE];
+				for (int i = 0; i < numCards; i++)
+					hand[HAND_SIZE - 1 - i] = deck[indices[i]]; // leave empty positions first, as in a partial line
+				if (getPokerHand(hand) != PokerHand.getPokerHand(hand)) {
+					if (mismatches++ < 10)
+						System.out.printf("Mismatch: %s %s != %s\n", Arrays.toString(hand), getPokerHand(hand), PokerHand.getPokerHand(hand));
+				}
+				checked[numCards]++;
+				// advance to the next combination of numCards card indices
+				int i = numCards - 1;
+				while (i >= 0 && indices[i] == Card.NUM_CARDS - numCards + i)
+					i--;
+				if (i < 0)
+					break;
+				indices[i]++;
+				for (int j = i + 1; j < numCards; j++)
+					indices[j] = indices[j - 1] + 1;
+			}
+			System.out.printf("%d-card hands checked: %d\n", numCards, checked[numCards]);
+		}
+		System.out.printf("Mismatches: %d\n", mismatches);
+	}
+}
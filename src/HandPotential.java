@@ -0,0 +1,294 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * HandPotential - Exact expected line scores for partial Poker Squares lines given the undealt deck.
+ *
+ * For a partial line, the expected score is taken over all equally likely ways of filling its empty positions with
+ * cards from the undealt deck.  Rather than sampling, it is computed by combinatorial counting: completions are
+ * grouped by the multiset of ranks they add, weighted by the number of card combinations yielding that multiset,
+ * and completions that make a flush are counted separately by enumerating rank subsets of the line's suit.
+ *
+ * Results are memoized by the rank and suit signature of the line (its {@link HandClassifier} key sums).
+ * Dealing or returning a card updates the deck counts in constant time and invalidates the memo by advancing a
+ * generation stamp, so entries are recomputed lazily for the new deck.  No entry can be kept across a deal: every
+ * expected score is divided by the number of completions from the whole deck and counts the cards of every rank, so
+ * removing any card changes every entry.  The memo pays off for repeated queries against one deck, such as the
+ * lines and candidate cells considered for a single card.
+ */
+public class HandPotential {
+
+	private static final int HAND_SIZE = PokerSquares.SIZE; // number of cards in a line
+	private static final int MEMO_SIZE = 1 << 12; // number of memo slots (power of 2)
+	private static final int MAX_PROBES = 8; // maximum memo slots examined per lookup
+	private static final long[][] CHOOSE = new long[Card.NUM_CARDS + 1][HAND_SIZE + 1]; // binomial coefficients
+
+	static {
+		for (int n = 0; n <= Card.NUM_CARDS; n++) {
+			CHOOSE[n][0] = 1;
+			for (int k = 1; k <= HAND_SIZE && k <= n; k++)
+				CHOOSE[n][k] = CHOOSE[n - 1][k - 1] + (k <= n - 1 ? CHOOSE[n - 1][k] : 0);
+		}
+	}
+
+	private final CompiledPointSystem kernel; // scoring kernel of the point system
+	private final int[] rankCounts = new int[Card.NUM_RANKS]; // number of undealt cards of each rank
+	private final int[] suitRanks = new int[Card.NUM_SUITS]; // per suit, 13-bit mask of undealt ranks
+	private int deckSize; // number of undealt cards
+
+	private final long[] memoKeys = new long[MEMO_SIZE]; // memoized line signatures
+	private final double[] memoValues = new double[MEMO_SIZE]; // memoized expected scores
+	private final int[] memoStamps = new int[MEMO_SIZE]; // generation in which each memo slot was filled
+	private int generation = 1; // current memo generation; advanced whenever the deck changes
+
+	/**
+	 * Create a hand potential engine for the given point system with a full undealt deck.
+	 * @param system point system
+	 */
+	public HandPotential(PokerSquaresPointSystem system) {
+		this.kernel = system.getCompiledPointSystem();
+		reset();
+	}
+
+	/**
+	 * Return all cards to the undealt deck.
+	 */
+	public void reset() {
+		for (int rank = 0; rank < Card.NUM_RANKS; rank++)
+			rankCounts[rank] = Card.NUM_SUITS;
+		for (int suit = 0; suit < Card.NUM_SUITS; suit++)
+			suitRanks[suit] = (1 << Card.NUM_RANKS) - 1;
+		deckSize = Card.NUM_CARDS;
+		invalidate();
+	}
+
+	/**
+	 * Remove the given card from the undealt deck.
+	 * @param cardId card identification number of an undealt card
+	 */
+	public void deal(int cardId) {
+		rankCounts[cardId % Card.NUM_RANKS]--;
+		suitRanks[cardId / Card.NUM_RANKS] &= ~(1 << (cardId % Card.NUM_RANKS));
+		deckSize--;
+		invalidate();
+	}
+
+	/**
+	 * Return the given card to the undealt deck.
+	 * @param cardId card identification number of a dealt card
+	 */
+	public void undeal(int cardId) {
+		rankCounts[cardId % Card.NUM_RANKS]++;
+		suitRanks[cardId / Card.NUM_RANKS] |= 1 << (cardId % Card.NUM_RANKS);
+		deckSize++;
+		invalidate();
+	}
+
+	/**
+	 * Invalidate all memo entries by advancing the generation, clearing the stamps in the rare case it wraps around.
+	 */
+	private void invalidate() {
+		if (++generation == 0) {
+			Arrays.fill(memoStamps, 0);
+			generation = 1;
+		}
+	}
+
+	/**
+	 * Return the number of undealt cards.
+	 * @return the number of undealt cards
+	 */
+	public int getDeckSize() {
+		return deckSize;
+	}
+
+	/**
+	 * Return the expected score of the given line of the given grid state once its empty positions are filled
+	 * with cards drawn from the undealt deck.  The cards of the grid should already have been dealt.
+	 * @param state grid state
+	 * @param line line index (rows 0 through 4, then columns 0 through 4)
+	 * @return the exact expected score of the completed line
+	 */
+	public double getExpectedScore(GridState state, int line) {
+		return getExpectedScore(state.getRankKey(line), state.getSuitCounts(line), HAND_SIZE - state.getLineCount(line));
+	}
+
+	/**
+	 * Return the expected score of a partial line once the given number of cards are drawn from the undealt deck
+	 * into it.  The cards of the line should already have been dealt.
+	 * @param rankKey {@link HandClassifier} rank key sum of the cards in the line
+	 * @param suitKey {@link HandClassifier} suit key sum of the cards in the line
+	 * @param numNeeded number of cards still needed to complete the line
+	 * @return the exact expected score of the completed line
+	 */
+	public double getExpectedScore(int rankKey, int suitKey, int numNeeded) {
+		if (numNeeded == 0)
+			return kernel.getLineScore(rankKey, suitKey);
+		long key = (long) rankKey << 15 | suitKey << 3 | numNeeded;
+		int slot = (int) (key ^ key >>> 17) & (MEMO_SIZE - 1);
+		for (int probe = 0; probe < MAX_PROBES && memoStamps[slot] == generation; probe++) {
+			if (memoKeys[slot] == key)
+				return memoValues[slot];
+			slot = (slot + 1) & (MEMO_SIZE - 1);
+		}
+		double total = sumRankCompletions(0, rankKey, numNeeded, 1) + sumFlushCompletions(rankKey, suitKey, numNeeded);
+		double expected = total / CHOOSE[deckSize][numNeeded];
+		if (memoStamps[slot] != generation) { // otherwise the probe sequence is full, so the result is not memoized
+			memoStamps[slot] = generation;
+			memoKeys[slot] = key;
+			memoValues[slot] = expected;
+		}
+		return expected;
+	}
+
+	/**
+	 * Sum the non-flush scores of all completions, grouped by the multiset of added ranks.
+	 * @param rank next rank to consider
+	 * @param rankKey rank key sum of the line and the ranks added so far
+	 * @param numNeeded number of cards still to add
+	 * @param ways number of card combinations yielding the ranks added so far
+	 * @return the sum of non-flush scores over all completions
+	 */
+	private double sumRankCompletions(int rank, int rankKey, int numNeeded, long ways) {
+		if (numNeeded == 0)
+			return (double) ways * kernel.getRankScore(rankKey);
+		if (rank == Card.NUM_RANKS)
+			return 0;
+		double total = 0;
+		int rankKeyIncrement = HandClassifier.getRankKey(rank); // card id of the club of this rank is the rank
+		int maxCount = Math.min(rankCounts[rank], numNeeded);
+		for (int count = 0; count <= maxCount; count++)
+			total += sumRankCompletions(rank + 1, rankKey + count * rankKeyIncrement, numNeeded - count,
+					ways * CHOOSE[rankCounts[rank]][count]);
+		return total;
+	}
+
+	/**
+	 * Sum, over all completions that make a flush, the difference between the flush score and the non-flush score
+	 * already counted for the same ranks.
+	 * @param rankKey rank key sum of the line
+	 * @param suitKey suit key sum of the line
+	 * @param numNeeded number of cards still to add
+	 * @return the flush correction summed over all flush completions
+	 */
+	private double sumFlushCompletions(int rankKey, int suitKey, int numNeeded) {
+		double total = 0;
+		for (int suit = 0; suit < Card.NUM_SUITS; suit++) {
+			int numInSuit = (suitKey >>> (3 * suit)) & 0x7;
+			if (numInSuit + numNeeded == HAND_SIZE) // all cards in the line are of this suit
+				total += sumFlushSubsets(suitRanks[suit], rankKey, numNeeded);
+		}
+		return total;
+	}
+
+	/**
+	 * Enumerate the subsets of the given undealt ranks of one suit with the given size, summing flush corrections.
+	 * @param ranks 13-bit mask of undealt ranks of the suit not yet considered
+	 * @param rankKey rank key sum of the line and the ranks added so far
+	 * @param numNeeded number of cards still to add
+	 * @return the flush correction summed over all such subsets
+	 */
+	private double sumFlushSubsets(int ranks, int rankKey, int numNeeded) {
+		if (numNeeded == 0)
+			return kernel.getFlushScore(rankKey) - kernel.getRankScore(rankKey);
+		double total = 0;
+		while (Integer.bitCount(ranks) >= numNeeded) {
+			int rank = Integer.numberOfTrailingZeros(ranks);
+			ranks &= ranks - 1;
+			total += sumFlushSubsets(ranks, rankKey + HandClassifier.getRankKey(rank), numNeeded - 1);
+		}
+		return total;
+	}
+
+	/**
+	 * Check expected scores against brute-force enumeration of every completion from the undealt deck, for random
+	 * point systems, decks and partial lines of every size.  Half of the lines are drawn from a single suit so that
+	 * flush completions are exercised.
+	 * @param args (not used)
+	 */
+	public static void main(String[] args) {
+		Random random = new Random(0);
+		int numChecks = 0;
+		int mismatches = 0;
+		for (int trial = 0; trial < 60; trial++) {
+			PokerSquaresPointSystem system = trial % 3 == 0 ? PokerSquaresPointSystem.getAmericanPointSystem()
+					: PokerSquaresPointSystem.getRandomPointSystem();
+			HandPotential potential = new HandPotential(system);
+			int numNeeded = 1 + trial % HAND_SIZE;
+			int numInLine = HAND_SIZE - numNeeded;
+			boolean[] dealt = new boolean[Card.NUM_CARDS];
+
+			// draw the line, from one suit in half of the trials
+			Card[] line = new Card[HAND_SIZE];
+			int suit = random.nextInt(Card.NUM_SUITS);
+			for (int i = 0; i < numInLine; i++) {
+				int cardId;
+				do
+					cardId = trial % 2 == 0 ? suit * Card.NUM_RANKS + random.nextInt(Card.NUM_RANKS)
+							: random.nextInt(Card.NUM_CARDS);
+				while (dealt[cardId]);
+				dealt[cardId] = true;
+				potential.deal(cardId);
+				line[i] = Card.getCard(cardId);
+			}
+
+			// deal other cards until the number of completions is small enough to enumerate
+			int numOthers = random.nextInt(Card.NUM_CARDS - 2 * HAND_SIZE - numInLine);
+			while (numOthers-- > 0 || CHOOSE[potential.getDeckSize()][numNeeded] > 200000) {
+				int cardId;
+				do
+					cardId = random.nextInt(Card.NUM_CARDS);
+				while (dealt[cardId]);
+				dealt[cardId] = true;
+				potential.deal(cardId);
+			}
+			int[] deck = new int[potential.getDeckSize()];
+			for (int cardId = 0, i = 0; cardId < Card.NUM_CARDS; cardId++)
+				if (!dealt[cardId])
+					deck[i++] = cardId;
+
+			// enumerate every combination of numNeeded undealt cards
+			long total = 0;
+			long count = 0;
+			int[] indices = new int[numNeeded];
+			for (int i = 0; i < numNeeded; i++)
+				indices[i] = i;
+			while (true) {
+				for (int i = 0; i < numNeeded; i++)
+					line[numInLine + i] = Card.getCard(deck[indices[i]]);
+				total += system.getHandScore(line);
+				count++;
+				int i = numNeeded - 1;
+				while (i >= 0 && indices[i] == deck.length - numNeeded + i)
+					i--;
+				if (i < 0)
+					break;
+				indices[i]++;
+				for (int j = i + 1; j < numNeeded; j++)
+					indices[j] = indices[j - 1] + 1;
+			}
+			for (int i = numInLine; i < HAND_SIZE; i++)
+				line[i] = null;
+
+			int rankKey = 0;
+			int suitKey = 0;
+			for (int i = 0; i < numInLine; i++) {
+				rankKey += HandClassifier.getRankKey(line[i].getCardId());
+				suitKey += HandClassifier.getSuitKey(line[i].getCardId());
+			}
+			double expected = (double) total / count;
+			for (int repeat = 0; repeat < 2; repeat++) { // the second lookup is answered by the memo
+				double actual = potential.getExpectedScore(rankKey, suitKey, numNeeded);
+				numChecks++;
+				if (Math.abs(actual - expected) > 1e-9 * Math.max(1, Math.abs(expected))) {
+					if (mismatches++ < 10)
+						System.out.printf("Mismatch: %s with %d undealt: %f != %f\n", Arrays.toString(line), deck.length,
+								actual, expected);
+				}
+			}
+		}
+		System.out.printf("Expected scores checked: %d, mismatches: %d\n", numChecks, mismatches);
+		if (mismatches > 0)
+			throw new IllegalStateException(mismatches + " expected scores differ from brute-force enumeration");
+	}
+}
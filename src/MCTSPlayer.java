@@ -0,0 +1,638 @@
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * MCTSPlayer - A Monte Carlo tree search (UCT) implementation of the player interface for PokerSquares.
+ *
+ * The tree alternates decision nodes, whose children are the placements of a known card, and chance nodes, whose
+ * children are the draws of each undealt card.  Decisions are selected by UCT, with exploration scaled by the standard
+ * deviation of the rollout scores; draws are sampled uniformly.  A leaf is expanded once it has been visited
+ * EXPANSION_VISITS times, and each iteration ends with a greedy rollout (as in {@link GreedyMCPlayer}) to the end of
+ * the game.
+ *
+ * Nodes live in primitive arena arrays indexed by node number rather than in one object per node, so millions of
+ * nodes cost no garbage collection; the children of a node occupy a contiguous block of the arena.  The tree is
+ * rebuilt for each move, and once the arena is full, leaves are no longer expanded.  Search threads share the tree:
+ * visit counts and value sums are updated atomically, nodes are expanded by the thread that claims them with a
+ * compare-and-set, and each node on a thread's path carries a virtual loss (a visit with the lowest possible score)
+ * until the thread's rollout is backed up, steering other threads to other paths.
+ *
+ * With a {@link TranspositionTable} (see setTranspositionTable), the averages and visit counts of chance nodes (grids
+ * after a placement), less the virtual losses of iterations still in progress, are stored by grid hash as iterations
+ * are backed up, and new chance nodes start from the stored statistics of the same grid, whether it was reached by
+ * another placement order in this move's tree or searched in an earlier move of the game.  Prior visits are capped at
+ * MAX_PRIOR_VISITS so that new rollouts still count.  Optionally, grids of few enough cards (see setMaxCanonicalPlaced)
+ * are keyed by the hash of their canonical representative (see {@link StateCanonicalizer}), so they also share
+ * statistics with grids equal up to row, column, transpose, and suit symmetry; later grids rarely have symmetric
+ * counterparts, so they are keyed by their own hashes.
+ *
+ * Once few enough cells are empty and the measured cost of an exact solve fits half the move's time, the play is
+ * chosen by an {@link EndgameSolver} instead of by search.
+ *
+ * The calling thread always searches; numThreads - 1 daemon threads from a pool shared by all instances join it, so
+ * players need no shutdown.  All threads stop at the move's deadline given by a {@link TimeBudget}.  Note that in the
+ * CPU charging mode of PokerSquares only the calling thread's time is charged, so multi-threaded players are best
+ * compared in WALL mode.
+ */
+public class MCTSPlayer implements PokerSquaresPlayer {
+
+	/**
+	 * the default maximum number of tree nodes
+	 */
+	public static final int DEFAULT_MAX_NODES = 1 << 22;
+	/**
+	 * the default maximum number of cards of grids whose transposition table entries are keyed by symmetry class (none,
+	 * as canonicalization costs more rollouts than it has been shown to gain)
+	 */
+	public static final int DEFAULT_MAX_CANONICAL_PLACED = 0;
+	private static final int SIZE = PokerSquares.SIZE; // number of rows/columns in square grid
+	private static final int NUM_POS = SIZE * SIZE; // number of positions in square grid
+	private static final int NUM_CARDS = Card.NUM_CARDS; // number of cards in deck
+	private static final long ALL_CARDS = (1L << NUM_CARDS) - 1; // mask of all card ids
+	private static final int ROOT = 0; // node number of the root (a decision node)
+	private static final int UNEXPANDED = -1; // first child of a leaf not yet expanded
+	private static final int EXPANDING = -2; // first child of a leaf being expanded, or that cannot be expanded as the arena is full
+	private static final int EXPANSION_VISITS = 2; // visits of a leaf before it is expanded
+	private static final double EXPLORATION = 1.0; // UCT exploration constant, in standard deviations of the rollout scores
+	private static final int MAX_PRIOR_VISITS = 64; // maximum visits a new node takes from the transposition table
+	private static final AtomicInteger threadCount = new AtomicInteger(); // number of search threads created
+	private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "MCTSPlayer-search-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}); // daemon threads running searchers[1] onward, shared by all players; idle threads exit after a minute
+
+	private final int numThreads; // number of search threads, including the calling thread
+	private final int maxNodes; // maximum number of tree nodes
+	private AtomicIntegerArray visits; // visits of each node, including virtual losses in progress
+	private AtomicLongArray valueSums; // sum of rollout scores through each node, including virtual losses in progress
+	private AtomicIntegerArray virtualLosses; // number of virtual losses in progress at each node
+	private AtomicIntegerArray firstChild; // node number of each node's first child, or UNEXPANDED or EXPANDING
+	private byte[] numChildren; // number of children of each expanded node
+	private byte[] moves; // cell placed by each child of a decision node, or card drawn by each child of a chance node
+	private long[] keys; // transposition table key of each chance node (or null without a table)
+	private final AtomicInteger numNodes = new AtomicInteger(); // number of nodes allocated in the arena
+	private final AtomicLong rolloutCount = new AtomicLong(); // number of rollouts of the current move
+	private final AtomicLong rolloutSum = new AtomicLong(); // sum of rollout scores of the current move
+	private final AtomicLong rolloutSquareSum = new AtomicLong(); // sum of squared rollout scores of the current move
+
+	private PokerSquaresPointSystem system; // point system
+	private TranspositionTable table; // statistics of chance nodes by grid hash (or null)
+	private EndgameSolver solver; // exact solver of the final placements
+	private int maxSolverEmpty = EndgameSolver.DEFAULT_MAX_EMPTY; // maximum number of empty cells of positions solved exactly
+	private int maxCanonicalPlaced = DEFAULT_MAX_CANONICAL_PLACED; // maximum number of cards of grids keyed by symmetry class
+	private int lossScore; // lowest possible game score, used as the score of a virtual loss
+	private TimeBudget budget = new TimeBudget(); // allocation of game time across moves
+	private Searcher[] searchers = new Searcher[0]; // search context of each thread; searchers[0] belongs to the calling thread
+	private volatile long deadline; // nanoTime at which the current move's search ends
+	private int cardId; // id of the card of the current move
+
+	/**
+	 * Create a single-threaded Monte Carlo tree search player with the default maximum number of tree nodes.
+	 */
+	public MCTSPlayer() {
+		this(1);
+	}
+
+	/**
+	 * Create a Monte Carlo tree search player searching on the given number of threads with the default maximum
+	 * number of tree nodes.
+	 * @param numThreads number of search threads, including the calling thread
+	 */
+	public MCTSPlayer(int numThreads) {
+		this(numThreads, DEFAULT_MAX_NODES);
+	}
+
+	/**
+	 * Create a Monte Carlo tree search player searching on the given number of threads with the given maximum number
+	 * of tree nodes.
+	 * @param numThreads number of search threads, including the calling thread
+	 * @param maxNodes maximum number of tree nodes
+	 */
+	public MCTSPlayer(int numThreads, int maxNodes) {
+		if (numThreads < 1)
+			throw new IllegalArgumentException("Number of threads must be positive: " + numThreads);
+		if (maxNodes < 1 + NUM_POS)
+			throw new IllegalArgumentException("Maximum number of nodes must be at least " + (1 + NUM_POS) + ": " + maxNodes);
+		this.numThreads = numThreads;
+		this.maxNodes = maxNodes;
+	}
+
+	/**
+	 * Set the table in which the statistics of chance nodes are shared across transpositions and moves.  A table
+	 * holds statistics of one point system, so it is cleared by setPointSystem(), which must follow this call.
+	 * @param table transposition table (or null to search without one)
+	 */
+	public void setTranspositionTable(TranspositionTable table) {
+		this.table = table;
+	}
+
+	/**
+	 * Set the maximum number of cards of grids whose transposition table entries are keyed by symmetry class rather
+	 * than by grid.  Keys of equivalent grids are hashes of the same canonical grid, so the two kinds of keys agree
+	 * wherever they coincide.
+	 * @param maxCanonicalPlaced maximum number of cards of grids keyed by symmetry class (0 to key all by grid)
+	 */
+	public void setMaxCanonicalPlaced(int maxCanonicalPlaced) {
+		this.maxCanonicalPlaced = maxCanonicalPlaced;
+	}
+
+	/**
+	 * Set the maximum number of empty cells of positions in which plays are chosen by the exact endgame solver, when
+	 * its estimated cost fits half the move's time.
+	 * @param maxSolverEmpty maximum number of empty cells of positions solved exactly (0 to never solve)
+	 */
+	public void setMaxSolverEmpty(int maxSolverEmpty) {
+		this.maxSolverEmpty = maxSolverEmpty;
+	}
+
+	/* (non-Javadoc)
+	 * @see PokerSquaresPlayer#setPointSystem(PokerSquaresPointSystem, long)
+	 */
+	@Override
+	public void setPointSystem(PokerSquaresPointSystem system, long millis) {
+		this.system = system;
+		solver = new EndgameSolver(system);
+		int minHandScore = Integer.MAX_VALUE;
+		for (int points : system.getScoreTable())
+			minHandScore = Math.min(minHandScore, points);
+		lossScore = 2 * SIZE * minHandScore;
+		if (table != null)
+			table.clear();
+		if (visits == null) { // allocate the arena once
+			visits = new AtomicIntegerArray(maxNodes);
+			valueSums = new AtomicLongArray(maxNodes);
+			virtualLosses = new AtomicIntegerArray(maxNodes);
+			firstChild = new AtomicIntegerArray(maxNodes);
+			numChildren = new byte[maxNodes];
+			moves = new byte[maxNodes];
+		}
+		if (table != null && keys == null)
+			keys = new long[maxNodes];
+		searchers = new Searcher[numThreads];
+		for (int t = 0; t < numThreads; t++)
+			searchers[t] = new Searcher();
+	}
+
+	/* (non-Javadoc)
+	 * @see PokerSquaresPlayer#init()
+	 */
+	@Override
+	public void init() {
+		for (Searcher searcher : searchers)
+			searcher.init();
+		if (solver != null)
+			solver.clear();
+		budget.reset();
+	}
+
+	/* (non-Javadoc)
+	 * @see PokerSquaresPlayer#getPlay(Card, long)
+	 */
+	@Override
+	public int[] getPlay(Card card, long millisRemaining) {
+		Searcher root = searchers[0];
+		budget.startMove(millisRemaining, root.numPlays); // allot this move its share of the remaining time
+		int bestPlay = root.plays[root.numPlays]; // the only empty position for the forced last play
+		int solvedPlay = getSolvedPlay(card, NUM_POS - root.numPlays);
+		if (solvedPlay >= 0) // exact endgame play
+			bestPlay = solvedPlay;
+		else if (root.numPlays < NUM_POS - 1) { // not the forced last play
+			cardId = card.getCardId();
+			deadline = budget.getSliceDeadline(0, 1);
+			if (table != null)
+				table.nextAge();
+			clearTree();
+			root.expand(ROOT, cardId);
+			search();
+			bestPlay = getBestPlay();
+		}
+		int[] playPos = {bestPlay / SIZE, bestPlay % SIZE}; // decode it into row and column
+		for (Searcher searcher : searchers)
+			searcher.makePlay(bestPlay, card.getCardId());
+		budget.endMove();
+		return playPos;
+	}
+
+	/**
+	 * Return the play of the card chosen by the exact endgame solver, if the position has few enough empty cells and
+	 * the solver's estimated cost fits half the move's time.  The solver gets the first half of the move; if it does
+	 * not finish, the rest of the move is divided anew, so that the fallback search keeps real time.
+	 * @param card card to play
+	 * @param numEmpty number of empty positions
+	 * @return the row-major index of the exact best play, or -1 if the position is not solved in time
+	 */
+	private int getSolvedPlay(Card card, int numEmpty) {
+		if (numEmpty < 2 || numEmpty > maxSolverEmpty || solver.getEstimatedNanos(numEmpty) > budget.getMoveNanos() / 2)
+			return -1;
+		int play = solver.getBestPlay(searchers[0].tracker.getState(), card.getCardId(), budget.getSliceDeadline(0, 2));
+		if (play < 0)
+			budget.divideRemainder();
+		return play;
+	}
+
+	/**
+	 * Clear the tree, leaving only an unexpanded root, and the rollout statistics of the previous move.
+	 */
+	private void clearTree() {
+		numNodes.set(ROOT + 1);
+		visits.set(ROOT, 0);
+		valueSums.set(ROOT, 0L);
+		virtualLosses.set(ROOT, 0);
+		firstChild.set(ROOT, UNEXPANDED);
+		rolloutCount.set(0L);
+		rolloutSum.set(0L);
+		rolloutSquareSum.set(0L);
+	}
+
+	/**
+	 * Search the tree on all threads until the deadline.
+	 */
+	private void search() {
+		if (numThreads == 1) {
+			searchers[0].search();
+			return;
+		}
+		ArrayList<Future<?>> results = new ArrayList<Future<?>>(searchers.length - 1);
+		for (int t = 1; t < searchers.length; t++) {
+			final Searcher searcher = searchers[t];
+			results.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					searcher.search();
+					return null;
+				}
+			}));
+		}
+		searchers[0].search();
+		try {
+			for (Future<?> result : results)
+				result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while searching", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Search failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Return the cell of the most visited child of the root, breaking ties by average score.
+	 * @return the cell of the most visited child of the root
+	 */
+	private int getBestPlay() {
+		int first = firstChild.get(ROOT);
+		int best = first;
+		for (int child = first + 1; child < first + (numChildren[ROOT] & 0xff); child++) {
+			int childVisits = visits.get(child);
+			int bestVisits = visits.get(best);
+			if (childVisits > bestVisits || childVisits == bestVisits && childVisits > 0
+					&& (double) valueSums.get(child) / childVisits > (double) valueSums.get(best) / bestVisits)
+				best = child;
+		}
+		return moves[best];
+	}
+
+	/**
+	 * Return the number of tree nodes allocated in the current or most recent move's search.
+	 * @return the number of tree nodes allocated
+	 */
+	public int getNumNodes() {
+		return numNodes.get();
+	}
+
+	/**
+	 * Return the number of rollouts of the current or most recent move's search.
+	 * @return the number of rollouts
+	 */
+	public long getNumRollouts() {
+		return rolloutCount.get();
+	}
+
+	/**
+	 * Allocate a contiguous block of nodes in the arena.
+	 * @param n number of nodes
+	 * @return the node number of the first node allocated, or -1 if the arena is full
+	 */
+	private int allocate(int n) {
+		int first;
+		do {
+			first = numNodes.get();
+			if (first + n > maxNodes)
+				return -1;
+		} while (!numNodes.compareAndSet(first, first + n));
+		return first;
+	}
+
+	/**
+	 * Return the UCT exploration scale: EXPLORATION standard deviations of the current move's rollout scores.
+	 * @return the UCT exploration scale
+	 */
+	private double getExplorationScale() {
+		long n = rolloutCount.get();
+		if (n < 2)
+			return EXPLORATION;
+		double mean = (double) rolloutSum.get() / n;
+		double variance = Math.max(0, (double) rolloutSquareSum.get() / n - mean * mean);
+		return EXPLORATION * Math.max(1, Math.sqrt(variance));
+	}
+
+	/* (non-Javadoc)
+	 * @see PokerSquaresPlayer#getName()
+	 */
+	@Override
+	public String getName() {
+		return "MCTSPlayer" + (numThreads > 1 ? "Threads" + numThreads : "");
+	}
+
+	/**
+	 * Searcher - the search context of one thread: its own copy of the plays, deck, and grid score, kept in step with
+	 * the actual game, from which it descends the shared tree.  As in {@link GreedyMCPlayer}, index maps make each
+	 * placement and its undo O(1), so iterations allocate nothing.
+	 */
+	private class Searcher {
+		private FastRandom random = new FastRandom(); // pseudorandom number generator for draws, ties, and rollouts
+		private int[] plays = new int[NUM_POS]; // positions played (index 0 through numPlays - 1), then empty positions
+		private int[] playIndex = new int[NUM_POS]; // index of each position in plays
+		private int numPlays = 0; // number of cards played into the grid so far
+		private ScoreTracker tracker = new ScoreTracker(system); // incrementally maintained score of grid
+		private int[] deck = new int[NUM_CARDS]; // card ids played (index 0 through numPlays - 1), then undealt cards
+		private int[] deckIndex = new int[NUM_CARDS]; // index of each card id in deck
+		private int[] path = new int[2 * NUM_POS + 1]; // nodes of the current iteration
+		private int[] chanceNodes = new int[NUM_POS]; // chance nodes of the current iteration
+		private StateCanonicalizer canonicalizer = new StateCanonicalizer(); // canonicalizer of grids keyed by symmetry class
+
+		/**
+		 * Create a search context with all positions empty and all cards undealt.
+		 */
+		Searcher() {
+			for (int i = 0; i < NUM_CARDS; i++) {
+				deck[i] = i;
+				deckIndex[i] = i;
+			}
+			init();
+		}
+
+		/**
+		 * Clear the grid and plays for a new game.
+		 */
+		void init() {
+			tracker.clear();
+			numPlays = 0;
+			for (int i = 0; i < NUM_POS; i++) {
+				plays[i] = i;
+				playIndex[i] = i;
+			}
+		}
+
+		/**
+		 * Run search iterations until the deadline.  The calling thread always completes at least one iteration.
+		 */
+		void search() {
+			do
+				iterate();
+			while (System.nanoTime() < deadline);
+		}
+
+		/**
+		 * Descend the tree from the root to a leaf or the end of the game, roll out greedily from a leaf, and back up
+		 * the final score along the path.
+		 */
+		private void iterate() {
+			int start = numPlays;
+			int node = ROOT;
+			int drawn = cardId;
+			int length = 0;
+			int numChance = 0;
+			addVirtualLoss(path[length++] = node);
+			int score;
+			while (true) {
+				// decision node: place the drawn card
+				int child = select(node, drawn);
+				if (child < 0) { // leaf
+					score = rollout(drawn);
+					break;
+				}
+				makePlay(moves[child], drawn);
+				addVirtualLoss(path[length++] = node = child);
+				chanceNodes[numChance++] = node;
+				if (numPlays == NUM_POS) { // end of game
+					score = tracker.getScore();
+					break;
+				}
+				// chance node: draw an undealt card
+				drawn = deck[numPlays + random.nextInt(NUM_CARDS - numPlays)];
+				int first = firstChild.get(node);
+				if (first == UNEXPANDED && visits.get(node) >= EXPANSION_VISITS)
+					first = expand(node, -1);
+				if (first < 0) { // leaf
+					score = rollout(drawn);
+					break;
+				}
+				long undealt = ALL_CARDS & ~tracker.getState().getDealtCards();
+				node = first + Long.bitCount(undealt & ((1L << drawn) - 1)); // children are ordered by card id
+				addVirtualLoss(path[length++] = node);
+			}
+			while (numPlays > start)
+				undoPlay();
+			for (int i = 0; i < length; i++) { // replace the virtual loss with the score
+				valueSums.addAndGet(path[i], score - lossScore);
+				virtualLosses.decrementAndGet(path[i]);
+			}
+			if (table != null)
+				for (int i = 0; i < numChance; i++) { // store statistics without other threads' virtual losses
+					int losses = virtualLosses.get(chanceNodes[i]);
+					int nodeVisits = visits.get(chanceNodes[i]) - losses;
+					long valueSum = valueSums.get(chanceNodes[i]) - (long) losses * lossScore;
+					if (nodeVisits > 0)
+						table.store(keys[chanceNodes[i]], (double) valueSum / nodeVisits, nodeVisits);
+				}
+			rolloutCount.incrementAndGet();
+			rolloutSum.addAndGet(score);
+			rolloutSquareSum.addAndGet((long) score * score);
+		}
+
+		/**
+		 * Add a visit with the lowest possible score to the given node until the iteration's score is backed up.
+		 * @param node node number
+		 */
+		private void addVirtualLoss(int node) {
+			virtualLosses.incrementAndGet(node);
+			visits.incrementAndGet(node);
+			valueSums.addAndGet(node, lossScore);
+		}
+
+		/**
+		 * Select the UCT child of the given decision node, expanding it if it is a leaf visited often enough.
+		 * Unvisited children are selected first, at random.
+		 * @param node decision node number
+		 * @param cardId id of the card to place
+		 * @return the selected child, or -1 if the node is a leaf
+		 */
+		private int select(int node, int cardId) {
+			int first = firstChild.get(node);
+			if (first == UNEXPANDED && visits.get(node) >= EXPANSION_VISITS)
+				first = expand(node, cardId);
+			if (first < 0)
+				return -1;
+			double logVisits = Math.log(visits.get(node));
+			double scale = getExplorationScale();
+			int best = -1;
+			double maxValue = Double.NEGATIVE_INFINITY;
+			int numBest = 0; // number of children yielding maxValue so far
+			for (int child = first; child < first + (numChildren[node] & 0xff); child++) {
+				int childVisits = visits.get(child);
+				double value = childVisits == 0 ? Double.POSITIVE_INFINITY
+						: (double) valueSums.get(child) / childVisits + scale * Math.sqrt(logVisits / childVisits);
+				if (value > maxValue) {
+					maxValue = value;
+					best = child;
+					numBest = 1;
+				}
+				else if (value == maxValue && random.nextInt(++numBest) == 0)
+					best = child;
+			}
+			return best;
+		}
+
+		/**
+		 * Expand the given leaf, unless another thread is expanding it or the arena is full.  With a transposition
+		 * table, the children of a decision node keep the keys of their grids and start from their statistics.
+		 * @param node leaf node number
+		 * @param cardId id of the card to place at a decision node (with a child per empty position), or -1 for a
+		 * chance node (with a child per undealt card, ordered by card id)
+		 * @return the node number of the first child, or a negative number if the leaf was not expanded
+		 */
+		int expand(int node, int cardId) {
+			boolean decision = cardId >= 0;
+			if (!firstChild.compareAndSet(node, UNEXPANDED, EXPANDING))
+				return firstChild.get(node);
+			int n = decision ? NUM_POS - numPlays : NUM_CARDS - numPlays;
+			int first = allocate(n);
+			if (first < 0) // the arena is full, so the node remains a leaf
+				return -1;
+			if (decision)
+				for (int i = 0; i < n; i++)
+					moves[first + i] = (byte) plays[numPlays + i];
+			else {
+				long undealt = ALL_CARDS & ~tracker.getState().getDealtCards();
+				for (int i = 0; i < n; i++, undealt &= undealt - 1)
+					moves[first + i] = (byte) Long.numberOfTrailingZeros(undealt);
+			}
+			for (int child = first; child < first + n; child++) {
+				long entry = TranspositionTable.MISS;
+				if (decision && table != null) {
+					tracker.place(moves[child], cardId);
+					keys[child] = getKey(); // computed once per node, as canonicalization is costly
+					tracker.undo();
+					entry = table.probe(keys[child]);
+				}
+				int priorVisits = entry == TranspositionTable.MISS ? 0
+						: Math.min(TranspositionTable.getVisits(entry), MAX_PRIOR_VISITS);
+				visits.set(child, priorVisits);
+				valueSums.set(child, priorVisits == 0 ? 0L : Math.round(TranspositionTable.getValue(entry) * priorVisits));
+				virtualLosses.set(child, 0);
+				firstChild.set(child, UNEXPANDED);
+			}
+			numChildren[node] = (byte) n;
+			firstChild.set(node, first); // publishes the children to other threads
+			return first;
+		}
+
+		/**
+		 * Return the transposition table key of the current grid: the hash of its canonical representative if it has
+		 * at most maxCanonicalPlaced cards, or else its own hash.
+		 * @return the transposition table key of the current grid
+		 */
+		private long getKey() {
+			GridState state = tracker.getState();
+			return state.getNumPlaced() <= maxCanonicalPlaced ? canonicalizer.getCanonicalHash(state) : state.getHash();
+		}
+
+		/**
+		 * Place the given card greedily, then draw random undealt cards and place them greedily to the end of the
+		 * game, breaking ties by reservoir sampling, and return the final score.
+		 * @param cardId id of the card to place first
+		 * @return the final score of the rollout
+		 */
+		private int rollout(int cardId) {
+			while (true) {
+				int maxScore = Integer.MIN_VALUE;
+				int bestPlay = -1;
+				int numBest = 0; // number of plays yielding maxScore so far
+				for (int i = numPlays; i < NUM_POS; i++) {
+					int play = plays[i];
+					int score = tracker.scoreDelta(play, cardId);
+					if (score > maxScore) {
+						maxScore = score;
+						bestPlay = play;
+						numBest = 1;
+					}
+					else if (score == maxScore && random.nextInt(++numBest) == 0)
+						bestPlay = play;
+				}
+				makePlay(bestPlay, cardId);
+				if (numPlays == NUM_POS)
+					return tracker.getScore();
+				cardId = deck[numPlays + random.nextInt(NUM_CARDS - numPlays)];
+			}
+		}
+
+		/**
+		 * Play the given card at the given empty position.
+		 * @param play row-major index of an empty position
+		 * @param cardId id of an undealt card
+		 */
+		void makePlay(int play, int cardId) {
+			swap(deck, deckIndex, deckIndex[cardId], numPlays);
+			swap(plays, playIndex, playIndex[play], numPlays);
+			tracker.place(play, cardId);
+			numPlays++;
+		}
+
+		/**
+		 * Undo the previous play.
+		 */
+		void undoPlay() {
+			numPlays--;
+			tracker.undo();
+		}
+
+		/**
+		 * Swap two entries of a list, updating the index map of its values.
+		 * @param list list of values
+		 * @param index index of each value in the list
+		 * @param i first list index
+		 * @param j second list index
+		 */
+		private void swap(int[] list, int[] index, int i, int j) {
+			int value = list[i];
+			list[i] = list[j];
+			list[j] = value;
+			index[list[i]] = i;
+			index[value] = j;
+		}
+	}
+
+	/**
+	 * Demonstrate MCTSPlayer play with the Ameritish point system.
+	 * @param args (not used)
+	 */
+	public static void main(String[] args) {
+		PokerSquaresPointSystem system = PokerSquaresPointSystem.getAmeritishPointSystem();
+		System.out.println(system);
+		new PokerSquares(new MCTSPlayer(), system).play(); // play a single game
+	}
+}
@@ -1,4 +1,7 @@
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 public interface Node extends Cloneable {
 
     /**
@@ -60,6 +63,14 @@ public interface Node extends Cloneable {
     public void setParent(Node parent);
 
 
+    /**
+     * Writes this node and its subtree in preorder, to be read back by
+     * Chromosome.readTree.
+     * @param out stream to write to
+     */
+    public void writeTo(DataOutputStream out) throws IOException;
+
+
     /**
      * Adds clonability to Node objects.
      */
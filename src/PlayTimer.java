@@ -0,0 +1,150 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * PlayTimer - Measures the time a game engine charges a player for each move.
+ *
+ * In WALL mode, players are charged elapsed wall-clock time, as in the contest.  In CPU mode, players are charged the
+ * CPU time of the thread calling the player (from the ThreadMXBean), so players are not charged for other games,
+ * other players, or leftover background threads competing for the machine.  Since helper threads a player starts are
+ * not charged in CPU mode, a game in CPU mode also times out if its wall-clock time exceeds WALL_LIMIT_FACTOR times
+ * the game time.
+ *
+ * In both modes, the timer accumulates each game's wall-clock time, the calling thread's CPU time, and the CPU time
+ * of all other threads of the process during the player's moves.  Wall-clock time not spent on the calling thread's
+ * CPU measures contention; the CPU time of other threads reveals background threads (such as a previous player's
+ * preparation still running after its deadline) and concurrent games.
+ */
+public class PlayTimer {
+
+	/**
+	 * what players are charged for
+	 */
+	public enum Mode {
+		/** elapsed wall-clock time */
+		WALL,
+		/** CPU time of the calling thread */
+		CPU
+	}
+
+	/**
+	 * the factor of the game time that the wall-clock time of a game may reach in CPU mode
+	 */
+	public static final int WALL_LIMIT_FACTOR = 3;
+
+	private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean(); // source of thread CPU times
+	private static final java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean(); // source of process CPU time
+
+	private final Mode mode; // what players are charged for
+	private long wallStart; // nanoTime at the start of the current move
+	private long cpuStart; // calling thread CPU time at the start of the current move
+	private long processStart; // process CPU time at the start of the current move
+	private long wallNanos; // wall-clock nanoseconds of this game's moves
+	private long cpuNanos; // calling thread CPU nanoseconds of this game's moves
+	private long otherCpuNanos; // CPU nanoseconds of other threads during this game's moves
+
+	/**
+	 * Create a play timer charging players in the given mode.
+	 * @param mode what players are charged for
+	 * @throws UnsupportedOperationException if CPU mode is requested and thread CPU time is not supported
+	 */
+	public PlayTimer(Mode mode) {
+		if (mode == Mode.CPU && !threads.isCurrentThreadCpuTimeSupported())
+			throw new UnsupportedOperationException("Thread CPU time is not supported by this JVM");
+		if (!threads.isThreadCpuTimeEnabled())
+			threads.setThreadCpuTimeEnabled(true);
+		this.mode = mode;
+	}
+
+	/**
+	 * Return the charging mode.
+	 * @return what players are charged for
+	 */
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Reset the accumulated times at the start of a game.
+	 */
+	public void reset() {
+		wallNanos = 0;
+		cpuNanos = 0;
+		otherCpuNanos = 0;
+	}
+
+	/**
+	 * Start timing a move.
+	 */
+	public void start() {
+		processStart = getProcessCpuTime();
+		cpuStart = threads.getCurrentThreadCpuTime();
+		wallStart = System.nanoTime();
+	}
+
+	/**
+	 * Stop timing a move and return the nanoseconds the player is charged for it.
+	 * @return the nanoseconds the player is charged for the move
+	 */
+	public long stop() {
+		long wall = System.nanoTime() - wallStart;
+		long cpu = threads.getCurrentThreadCpuTime() - cpuStart;
+		long process = getProcessCpuTime() - processStart;
+		wallNanos += wall;
+		cpuNanos += cpu;
+		if (process > cpu)
+			otherCpuNanos += process - cpu;
+		return mode == Mode.CPU ? cpu : wall;
+	}
+
+	/**
+	 * Return whether or not the game's wall-clock time exceeds the limit of the charging mode.
+	 * @param gameNanos nanoseconds allotted to the game
+	 * @return whether or not the game's wall-clock time exceeds the limit of the charging mode
+	 */
+	public boolean isWallLimitExceeded(long gameNanos) {
+		return mode == Mode.CPU && wallNanos > WALL_LIMIT_FACTOR * gameNanos;
+	}
+
+	/**
+	 * Return the wall-clock nanoseconds of this game's moves.
+	 * @return the wall-clock nanoseconds of this game's moves
+	 */
+	public long getWallNanos() {
+		return wallNanos;
+	}
+
+	/**
+	 * Return the calling thread's CPU nanoseconds during this game's moves.
+	 * @return the calling thread's CPU nanoseconds during this game's moves
+	 */
+	public long getCpuNanos() {
+		return cpuNanos;
+	}
+
+	/**
+	 * Return the CPU nanoseconds of other threads of the process during this game's moves.
+	 * @return the CPU nanoseconds of other threads during this game's moves (0 if process CPU time is unsupported)
+	 */
+	public long getOtherCpuNanos() {
+		return otherCpuNanos;
+	}
+
+	/**
+	 * Return the fraction of this game's wall-clock time not spent on the calling thread's CPU.
+	 * @return the contention of this game, in [0, 1]
+	 */
+	public double getContention() {
+		return wallNanos == 0 ? 0 : Math.max(0, 1 - (double) cpuNanos / wallNanos);
+	}
+
+	/**
+	 * Return the CPU time of the process, if supported.
+	 * @return the CPU nanoseconds of the process (0 if unsupported)
+	 */
+	private static long getProcessCpuTime() {
+		if (os instanceof com.sun.management.OperatingSystemMXBean)
+			return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+		return 0;
+	}
+}
@@ -0,0 +1,240 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * PlayerSession - A player prepared for a point system, ready to play any number of games.
+ *
+ * Preparation calls {@link PokerSquaresPlayer#setPointSystem(PokerSquaresPointSystem, long)} on a shared pool of
+ * daemon threads rather than on a new thread per game object.  If the player has not returned by the deadline, its
+ * preparation thread is interrupted so that cooperative players can stop, and the session proceeds as the contest
+ * rules require; a player that ignores the interrupt keeps running in the background, which
+ * {@link #isPreparationRunning()} reports.  A player whose preparation for a point system with the same score table
+ * completed is not prepared again, and a player whose preparation is still running is not prepared a second time.
+ *
+ * Sessions with players from a factory are checked out for the exclusive use of one caller and checked back in when
+ * the caller is finished, so that repeated tournaments reuse prepared players without two games ever sharing one.
+ * Idle sessions are cached by factory and score table.  Only the {@value #MAX_IDLE_POOLS} most recently used
+ * factory and score table pairs keep their idle sessions, so that players of discarded factories (including
+ * lambdas, which may never become unreachable) and of point systems no longer played are released;
+ * {@link #clearCache()} releases them all.
+ */
+public class PlayerSession {
+
+	private static final AtomicInteger threadCount = new AtomicInteger(); // number of preparation threads created
+	private static final ExecutorService preparer = Executors.newCachedThreadPool(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "PlayerSession-prepare-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}); // shared pool running player preparation
+	private static final Map<PokerSquaresPlayer, Preparation> preparations =
+			Collections.synchronizedMap(new WeakHashMap<PokerSquaresPlayer, Preparation>()); // last preparation of each player
+	private static final int MAX_IDLE_POOLS = 4; // maximum number of factory and score table pairs with idle sessions
+	private static final Map<List<Object>, Queue<PlayerSession>> idleSessions =
+			new LinkedHashMap<List<Object>, Queue<PlayerSession>>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<List<Object>, Queue<PlayerSession>> eldest) {
+			return size() > MAX_IDLE_POOLS;
+		}
+	}; // idle sessions by factory and score table, least recently used first; guarded by itself
+
+	/**
+	 * The outcome of a player's last preparation: the score table it was prepared for, whether or not it returned
+	 * before the deadline, and whether or not it is still running.  Preparations hold no reference to their player,
+	 * so players remain weakly reachable from the map of preparations.
+	 */
+	private static class Preparation {
+		final List<Integer> key; // score table the player was prepared for
+		final boolean completed; // whether or not preparation returned before the deadline
+		final AtomicBoolean running; // whether or not preparation is still running
+
+		Preparation(List<Integer> key, boolean completed, AtomicBoolean running) {
+			this.key = key;
+			this.completed = completed;
+			this.running = running;
+		}
+	}
+
+	private final PokerSquaresPlayer player; // prepared player
+	private final PokerSquaresPointSystem system; // point system the player is prepared for
+	private final boolean completed; // whether or not preparation returned before the deadline
+	private final AtomicBoolean running; // whether or not preparation is still running
+
+	private PlayerSession(PokerSquaresPlayer player, PokerSquaresPointSystem system, boolean completed,
+			AtomicBoolean running) {
+		this.player = player;
+		this.system = system;
+		this.completed = completed;
+		this.running = running;
+	}
+
+	/**
+	 * Prepare the given player for the given point system, allowing it the given number of milliseconds.
+	 * Preparation is skipped if the player's last preparation was for a point system with the same score table and
+	 * either completed or is still running; the session then reports the state of that preparation.
+	 * @param player Poker Squares player
+	 * @param system Poker Squares point system
+	 * @param millis number of milliseconds allotted for player processing of the point system
+	 * @return a session with the prepared player
+	 */
+	public static PlayerSession prepare(final PokerSquaresPlayer player, final PokerSquaresPointSystem system, final long millis) {
+		system.getCompiledPointSystem(); // compile the scoring kernel once, before the player prepares
+		List<Integer> key = getKey(system);
+		Preparation last = preparations.get(player);
+		if (last != null && last.key.equals(key) && (last.completed || last.running.get()))
+			return new PlayerSession(player, system, last.completed, last.running);
+		final AtomicBoolean running = new AtomicBoolean(true);
+		Future<?> preparation = preparer.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					player.setPointSystem(system, millis);
+				} finally {
+					running.set(false);
+				}
+			}
+		});
+		boolean completed = false;
+		try {
+			preparation.get(millis, TimeUnit.MILLISECONDS);
+			completed = true;
+		} catch (TimeoutException e) {
+			preparation.cancel(true); // interrupt the player so that it can stop cooperatively
+		} catch (InterruptedException e) {
+			preparation.cancel(true);
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			e.getCause().printStackTrace();
+		}
+		preparations.put(player, new Preparation(key, completed, running));
+		return new PlayerSession(player, system, completed, running);
+	}
+
+	/**
+	 * Check out a session with a player from the given factory prepared for the given point system, for the exclusive
+	 * use of the caller until it is checked in.  An idle session cached for the same factory and score table is reused
+	 * if there is one; otherwise a new player from the factory is prepared.
+	 * @param playerFactory factory creating new, independent players
+	 * @param system Poker Squares point system
+	 * @param millis number of milliseconds allotted for player processing of the point system
+	 * @return a session with a prepared player
+	 */
+	public static PlayerSession checkOut(Supplier<? extends PokerSquaresPlayer> playerFactory, PokerSquaresPointSystem system, long millis) {
+		PlayerSession session = getIdleSessions(playerFactory, getKey(system)).poll();
+		return session != null ? session : prepare(playerFactory.get(), system, millis);
+	}
+
+	/**
+	 * Check in a session checked out with the given factory, once the caller will no longer use its player, so that
+	 * later checkouts may reuse it.  Sessions whose preparation did not complete are discarded rather than cached.
+	 * @param playerFactory factory the session was checked out with
+	 * @param session session to check in
+	 */
+	public static void checkIn(Supplier<? extends PokerSquaresPlayer> playerFactory, PlayerSession session) {
+		if (session.completed)
+			getIdleSessions(playerFactory, getKey(session.system)).add(session);
+	}
+
+	/**
+	 * Discard all idle sessions, releasing their players.
+	 */
+	public static void clearCache() {
+		synchronized (idleSessions) {
+			idleSessions.clear();
+		}
+	}
+
+	/**
+	 * Return the queue of idle sessions of the given factory and score table, creating it if necessary and marking it
+	 * most recently used.  Creating it may evict the least recently used queue.
+	 * @param playerFactory factory creating new, independent players
+	 * @param key score table as a list
+	 * @return the queue of idle sessions
+	 */
+	private static Queue<PlayerSession> getIdleSessions(Supplier<? extends PokerSquaresPlayer> playerFactory, List<Integer> key) {
+		List<Object> poolKey = Arrays.<Object>asList(playerFactory, key); // lambda factories compare by identity
+		synchronized (idleSessions) {
+			Queue<PlayerSession> idle = idleSessions.get(poolKey);
+			if (idle == null) {
+				idle = new ConcurrentLinkedQueue<PlayerSession>();
+				idleSessions.put(poolKey, idle);
+			}
+			return idle;
+		}
+	}
+
+	/**
+	 * Return the score table of the given point system as a list, for use as a cache key.
+	 * @param system Poker Squares point system
+	 * @return the score table as a list
+	 */
+	private static List<Integer> getKey(PokerSquaresPointSystem system) {
+		int[] scores = system.getScoreTable();
+		List<Integer> key = new ArrayList<Integer>(scores.length);
+		for (int score : scores)
+			key.add(score);
+		return key;
+	}
+
+	/**
+	 * Create a new game played by this session's player with this session's point system.
+	 * @return a new game
+	 */
+	public PokerSquares newGame() {
+		return new PokerSquares(this);
+	}
+
+	/**
+	 * Return the prepared player.
+	 * @return the prepared player
+	 */
+	public PokerSquaresPlayer getPlayer() {
+		return player;
+	}
+
+	/**
+	 * Return the point system the player is prepared for.
+	 * @return the point system the player is prepared for
+	 */
+	public PokerSquaresPointSystem getPointSystem() {
+		return system;
+	}
+
+	/**
+	 * Return whether or not the player's preparation returned before the deadline.
+	 * @return whether or not the player's preparation returned before the deadline
+	 */
+	public boolean isCompleted() {
+		return completed;
+	}
+
+	/**
+	 * Return whether or not the player's preparation is still running in the background, having ignored the
+	 * interrupt at its deadline.
+	 * @return whether or not the player's preparation is still running
+	 */
+	public boolean isPreparationRunning() {
+		return running.get();
+	}
+}
@@ -20,6 +20,7 @@ public enum PokerHand {
 	
 	/**
 	 * Given a Card array (possibly with null values) classifies the current Poker hand and returns the classification.
+	 * This is the reference implementation; {@link HandClassifier} provides an equivalent table-driven classifier.
 	 * @param hand - a Poker hand represented as an array of Card objects which may contain null values
 	 * @return classification of the given Poker hand
 	 */
@@ -1,9 +1,16 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 import java.util.Scanner;
 import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /* A parameterized version of the solitaire game "Poker Squares" with variable point systems.
  * Author: Todd W. Neller
@@ -46,14 +53,22 @@ public class PokerSquares {
 	public static final int SIZE = 5; // square grid size
 	public static final long POINT_SYSTEM_MILLIS = 300000L; // EAAI-2016 contest maximum milliseconds for processing score table
 	public static final long GAME_MILLIS = 30000L; // EAAI-2016 contest maximum milliseconds per game
+	private static volatile DealCorpus dealCorpus; // precomputed deals of seeded games (or null to shuffle)
+	private static volatile PlayTimer.Mode chargeMode = PlayTimer.Mode.WALL; // what players are charged for
 
+	private final PlayerSession session; // session of the prepared player
 	private PokerSquaresPlayer player; // current player
 	private PokerSquaresPointSystem system; // current point system
 	private long gameMillis = GAME_MILLIS; // maximum milliseconds for current game
 	private boolean verbose = true; // whether or not to print move-by-move transcript of the game
 	private Card[][] grid = new Card[SIZE][SIZE]; // current game grid
 	private Random random = new Random(); // current game random number generator
+	private int[] deal = new int[DealCorpus.DEAL_BYTES]; // card ids of a deal read from the deal corpus
+	private long seed; // seed of the current game
+	private boolean seeded = false; // whether or not the seed of the next game has been set (cleared as it starts)
 	private int minPoints; // minimum possible score for current point system.
+	private PlayTimer timer = new PlayTimer(PlayTimer.Mode.WALL); // timer of the current game's moves
+	private boolean backgroundReported = false; // whether or not background preparation has been reported
 	
 	/**
 	 * Create a PokerSquares game with a given player and point system.
@@ -61,27 +76,22 @@ public class PokerSquares {
 	 * @param system current Poker Squares point system
 	 */
 	public PokerSquares(PokerSquaresPlayer player, PokerSquaresPointSystem system) {
-		this.player = player;
-		this.system = system;
+		this(PlayerSession.prepare(player, system, POINT_SYSTEM_MILLIS));
+	}
+	
+	/**
+	 * Create a PokerSquares game with the prepared player and point system of the given session.
+	 * @param session player session prepared for a point system
+	 */
+	public PokerSquares(PlayerSession session) {
+		this.session = session;
+		this.player = session.getPlayer();
+		this.system = session.getPointSystem();
 		minPoints = Integer.MAX_VALUE;
 		for (int points : system.getScoreTable())
 			if (points < minPoints)
 				minPoints = points;
 		minPoints *= 10;
-		final PokerSquaresPlayer PLAYER = player;
-		final PokerSquaresPointSystem SYSTEM = system;
-		Thread thread = new Thread(new Runnable() {
-			@Override
-			public void run() {
-				PLAYER.setPointSystem(SYSTEM, POINT_SYSTEM_MILLIS);
-			}
-		});
-		thread.start();
-		try {
-			thread.join(POINT_SYSTEM_MILLIS);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
 	}
 
 	/**
@@ -91,11 +101,21 @@ public class PokerSquares {
 	public int play() {
 		player.init();
 
-		// shuffle deck
+		// shuffle deck, or read the deal of a seeded game from the deal corpus if it has the seed
 		Stack<Card> deck = new Stack<Card>();
-		for (Card card : Card.getAllCards())
-			deck.push(card);
-		Collections.shuffle(deck, random);
+		DealCorpus corpus = dealCorpus;
+		boolean seededGame = seeded;
+		seeded = false; // later unseeded games shuffle rather than replay this deal
+		if (corpus != null && seededGame && corpus.contains(seed)) {
+			corpus.getDeal(seed, deal);
+			for (int i = deal.length - 1; i >= 0; i--)
+				deck.push(Card.getCard(deal[i]));
+		}
+		else {
+			for (Card card : Card.getAllCards())
+				deck.push(card);
+			Collections.shuffle(deck, random);
+		}
 		
 		// clear grid
 		for (int row = 0; row < SIZE; row++)
@@ -103,14 +123,15 @@ public class PokerSquares {
 				grid[row][col] = null;
 		
 		// play game
-		long millisRemaining = gameMillis;
+		long nanosRemaining = gameMillis * 1000000L;
+		startTimer();
 		int cardsPlaced = 0;
 		while (cardsPlaced < SIZE * SIZE) {
 			Card card = deck.pop();
-			long startTime = System.currentTimeMillis();
-			int[] play = player.getPlay(card, millisRemaining);
-			millisRemaining -= System.currentTimeMillis() - startTime;
-			if (millisRemaining < 0) { // times out
+			timer.start();
+			int[] play = player.getPlay(card, nanosRemaining / 1000000L);
+			nanosRemaining -= timer.stop();
+			if (nanosRemaining < 0 || timer.isWallLimitExceeded(gameMillis * 1000000L)) { // times out
 				System.err.println("Player Out of Time");
 				return minPoints;
 			}
@@ -128,6 +149,30 @@ public class PokerSquares {
 		return system.getScore(grid);
 	}
 	
+	/**
+	 * Reset the move timer for a new game in the current charging mode, and report a player preparation still
+	 * running in the background, since it competes with the game for the machine.
+	 */
+	private void startTimer() {
+		if (timer.getMode() != chargeMode)
+			timer = new PlayTimer(chargeMode);
+		timer.reset();
+		if (!backgroundReported && session.isPreparationRunning()) {
+			System.err.printf("Warning: \"%s\" is still preparing for the point system in the background\n",
+					player.getName());
+			backgroundReported = true;
+		}
+	}
+	
+	/**
+	 * Return the timer of the current or most recent game's moves, which reports the wall-clock time, CPU time, and
+	 * contention of the game.
+	 * @return the timer of the current or most recent game's moves
+	 */
+	public PlayTimer getPlayTimer() {
+		return timer;
+	}
+	
 	/**
 	 * Given two-character card inputs from the given Scanner, play a game of Poker Squares and return the final
 	 * game score.
@@ -149,7 +194,8 @@ public class PokerSquares {
 				grid[row][col] = null;
 		
 		// play game
-		long millisRemaining = gameMillis;
+		long nanosRemaining = gameMillis * 1000000L;
+		startTimer();
 		int cardsPlaced = 0;
 		while (cardsPlaced < SIZE * SIZE) {
 			Card card = null;
@@ -170,10 +216,10 @@ public class PokerSquares {
 				remaining.remove(card);
 			}
 			
-			long startTime = System.currentTimeMillis();
-			int[] play = player.getPlay(card, millisRemaining);
-			millisRemaining -= System.currentTimeMillis() - startTime;
-			if (millisRemaining < 0) { // times out
+			timer.start();
+			int[] play = player.getPlay(card, nanosRemaining / 1000000L);
+			nanosRemaining -= timer.stop();
+			if (nanosRemaining < 0 || timer.isWallLimitExceeded(gameMillis * 1000000L)) { // times out
 				System.err.println("Player Out of Time");
 				return minPoints;
 			}
@@ -199,33 +245,137 @@ public class PokerSquares {
 	 * @return integer array of game scores
 	 */
 	public int[] playSequence(int numGames, long startSeed, boolean verbose) {
+		return playSequence(numGames, startSeed, verbose, 0);
+	}
+	
+	/**
+	 * Play a sequence of games, collecting and reporting statistics, and stopping early once the 95% confidence
+	 * interval of the mean score is no wider than the given half-width (after at least
+	 * {@link ScoreStatistics#MIN_GAMES} games).
+	 * @param maxGames maximum number of games to play
+	 * @param startSeed seed of first game. Successive games use successive seeds
+	 * @param verbose whether or not to provide verbose output of game play
+	 * @param targetHalfWidth target half-width of the confidence interval of the mean score (0 to never stop early)
+	 * @return integer array of the scores of the games played
+	 */
+	public int[] playSequence(int maxGames, long startSeed, boolean verbose, double targetHalfWidth) {
 		this.verbose = verbose;
 		if (verbose) {
-			System.out.printf("%d games starting at seed %d\nPoint system:\n%s\n", numGames, startSeed, system);
+			System.out.printf("%d games starting at seed %d\nPoint system:\n%s\n", maxGames, startSeed, system);
 		}
-		int[] scores = new int[numGames];
-		double scoreMean = 0;
-		int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
-		for (int i = 0; i < numGames; i++) {
-			setSeed(startSeed + i);
+		ScoreStatistics stats = new ScoreStatistics();
+		int[] scores = new int[maxGames];
+		int numGames = 0;
+		long wallNanos = 0, cpuNanos = 0, otherCpuNanos = 0;
+		while (numGames < maxGames && !isPrecise(stats, targetHalfWidth)) {
+			setSeed(startSeed + numGames);
 			int score = play();
-			scores[i] = score;
-			scoreMean += score;
-			if (scores[i] < min) min = scores[i];
-			if (scores[i] > max) max = scores[i];
+			scores[numGames++] = score;
+			stats.add(score);
+			wallNanos += timer.getWallNanos();
+			cpuNanos += timer.getCpuNanos();
+			otherCpuNanos += timer.getOtherCpuNanos();
 			System.out.println(score);
 		}
-		scoreMean /= numGames;
-		double scoreStdDev = 0;
+		printStatistics(stats);
+		if (timer.getMode() == PlayTimer.Mode.CPU && numGames > 0)
+			System.out.printf("Per game: wall time %.1f ms, CPU time %.1f ms, contention %.1f%%, other threads' CPU time %.1f ms\n",
+					wallNanos / 1e6 / numGames, cpuNanos / 1e6 / numGames,
+					wallNanos == 0 ? 0 : Math.max(0, 100 - 100.0 * cpuNanos / wallNanos), otherCpuNanos / 1e6 / numGames);
+		return numGames < maxGames ? Arrays.copyOf(scores, numGames) : scores;
+	}
+	
+	/**
+	 * Return whether or not the 95% confidence interval of the mean score is no wider than the given half-width.
+	 * @param stats score statistics
+	 * @param targetHalfWidth target half-width of the confidence interval (0 to never stop early)
+	 * @return whether or not enough games have been played to stop early
+	 */
+	private static boolean isPrecise(ScoreStatistics stats, double targetHalfWidth) {
+		return targetHalfWidth > 0 && stats.getCount() >= ScoreStatistics.MIN_GAMES
+				&& stats.getHalfWidth(ScoreStatistics.Z_95) <= targetHalfWidth;
+	}
+	
+	/**
+	 * Play a sequence of games in parallel on the given executor, collecting and reporting statistics.
+	 * Each concurrently running game uses its own player from the given factory, prepared for the point system once
+	 * and reused for later games.  Players are checked out of the sessions cached for the factory and point system
+	 * and checked back in when the sequence ends (see
+	 * {@link PlayerSession#checkOut(Supplier, PokerSquaresPointSystem, long)}), so passing the same factory object to
+	 * repeated sequences skips their preparation, while concurrent sequences never share a player.  Scores are returned and reported in seed order, so for
+	 * players whose play depends only on the cards dealt, the results are identical to those of the serial
+	 * {@link #playSequence(int, long, boolean)}.  Concurrent games share the machine, so timed players may search
+	 * less per move than when playing alone.
+	 * @param playerFactory factory creating a new, independent player for each worker
+	 * @param system Poker Squares point system
+	 * @param numGames number of games to play
+	 * @param startSeed seed of first game. Successive games use successive seeds
+	 * @param executor executor (e.g. a ForkJoinPool) on which games are played
+	 * @return integer array of game scores in seed order
+	 */
+	public static int[] playSequence(final Supplier<? extends PokerSquaresPlayer> playerFactory,
+			final PokerSquaresPointSystem system, int numGames, long startSeed, ExecutorService executor) {
+		final ConcurrentLinkedQueue<PokerSquares> idleGames = new ConcurrentLinkedQueue<PokerSquares>(); // prepared games not in use
+		ArrayList<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>(numGames);
 		for (int i = 0; i < numGames; i++) {
-			double diff = scores[i] - scoreMean;
-			scoreStdDev += diff * diff;
+			final long seed = startSeed + i;
+			tasks.add(new Callable<Integer>() {
+				@Override
+				public Integer call() {
+					PokerSquares game = idleGames.poll();
+					if (game == null) {
+						game = PlayerSession.checkOut(playerFactory, system, POINT_SYSTEM_MILLIS).newGame();
+						game.verbose = false;
+					}
+					game.setSeed(seed);
+					int score = game.play();
+					idleGames.add(game);
+					return score;
+				}
+			});
+		}
+		int[] scores = new int[numGames];
+		try {
+			List<Future<Integer>> results = executor.invokeAll(tasks);
+			for (int i = 0; i < numGames; i++) {
+				scores[i] = results.get(i).get();
+				System.out.println(scores[i]);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while playing games", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Game failed", e.getCause());
+		} finally {
+			for (PokerSquares game : idleGames) // games of failed tasks are not idle, so their players are not reused
+				PlayerSession.checkIn(playerFactory, game.session);
 		}
-		scoreStdDev = Math.sqrt(scoreStdDev / numGames);
-		System.out.printf("Score Mean: %f, Standard Deviation: %f, Minimum: %d, Maximum: %d\n", scoreMean, scoreStdDev, min, max);
+		printStatistics(scores);
 		return scores;
 	}
 	
+	/**
+	 * Print the mean, standard deviation, minimum, maximum and quartiles of the given game scores.
+	 * @param scores game scores
+	 */
+	private static void printStatistics(int[] scores) {
+		ScoreStatistics stats = new ScoreStatistics();
+		stats.addAll(scores);
+		printStatistics(stats);
+	}
+	
+	/**
+	 * Print the mean, standard deviation, minimum, maximum and quartiles of the given score statistics.
+	 * @param stats score statistics
+	 */
+	private static void printStatistics(ScoreStatistics stats) {
+		System.out.println(stats);
+		if (stats.getCount() > 0)
+			System.out.printf("Quartiles: %d, %d, %d; 95%% Confidence Interval of Mean: %f +/- %f\n",
+					stats.getPercentile(25), stats.getPercentile(50), stats.getPercentile(75), stats.getMean(),
+					stats.getHalfWidth(ScoreStatistics.Z_95));
+	}
+	
 	/**
 	 * Hold a Poker Squares tournament between the given players and point systems, the number of games played by 
 	 * each player with each point system, and the start seed determining the sequence of deals all will encounter, 
@@ -257,31 +407,181 @@ public class PokerSquares {
 					totalScores[i] += score;
 				System.out.printf("Player \"%s\" total score: %d\n", player.getName(), totalScores[i]);
 			}
-			int maxTotal = Integer.MIN_VALUE;
-			int minTotal = Integer.MAX_VALUE;
-			for (int totalScore : totalScores) {
-				if (totalScore > maxTotal)
-					maxTotal = totalScore;
-				if (totalScore < minTotal)
-					minTotal = totalScore;				
+			addNormalizedScores(getNames(players), totalScores, tournamentScores);
+		}
+		printTournamentScores(getNames(players), tournamentScores);
+		return tournamentScores;
+	}
+	
+	/**
+	 * Hold a Poker Squares tournament as in {@link #playTournament(ArrayList, ArrayList, int, long)}, but stop playing
+	 * each player-system pair early once its result is statistically clear.  For each point system, players play the
+	 * same deals in rounds.  After at least {@link ScoreStatistics#MIN_GAMES} games, a player stops once the 95%
+	 * confidence interval of its mean score is no wider than the given half-width, or once that interval is disjoint
+	 * from the intervals of all other players, i.e. its ranking is settled.  Tournament scores are computed from mean
+	 * scores, so players may have played different numbers of games.
+	 * @param players Poker Squares players taking part in the tournament
+	 * @param systems Poker Squares point systems used to evaluate players in the tournament
+	 * @param maxGamesPerSystem the maximum number of games played by each player with each point system
+	 * @param startSeed the start seed for the pseudorandom number generator that generates card deals
+	 * @param targetHalfWidth target half-width of the confidence interval of each mean score (0 to stop only on
+	 * settled rankings)
+	 * @return the sum of the tournament scores for each of the given players
+	 */
+	public static double[] playTournament(
+			ArrayList<PokerSquaresPlayer> players,
+			ArrayList<PokerSquaresPointSystem> systems,
+			int maxGamesPerSystem, long startSeed, double targetHalfWidth) {
+		String[] names = getNames(players);
+		double[] tournamentScores = new double[players.size()];
+		for (PokerSquaresPointSystem system : systems) { // for each point system
+			System.out.println("Point System:\n" + system);
+			PokerSquares[] games = new PokerSquares[players.size()];
+			ScoreStatistics[] stats = new ScoreStatistics[players.size()];
+			boolean[] stopped = new boolean[players.size()];
+			for (int i = 0; i < games.length; i++) {
+				games[i] = new PokerSquares(players.get(i), system);
+				games[i].verbose = false;
+				stats[i] = new ScoreStatistics();
 			}
-			for (int i = 0; i < players.size(); i++) { // for each player
-				double normalizedTotal = (double) (totalScores[i] - minTotal) / (maxTotal - minTotal);
-				System.out.println("Player \"" + players.get(i).getName() + "\" normalized score: " + normalizedTotal);
-				tournamentScores[i] += normalizedTotal;
+			int numStopped = 0;
+			for (int g = 0; g < maxGamesPerSystem && numStopped < games.length; g++) { // for each round of games
+				for (int i = 0; i < games.length; i++) // for each player still playing
+					if (!stopped[i]) {
+						games[i].setSeed(startSeed + g);
+						stats[i].add(games[i].play());
+					}
+				for (int i = 0; i < games.length; i++)
+					if (!stopped[i] && (isPrecise(stats[i], targetHalfWidth) || isRankSettled(stats, i))) {
+						stopped[i] = true;
+						numStopped++;
+						System.out.printf("Player \"%s\" stopped after %d games\n", names[i], stats[i].getCount());
+					}
+			}
+			double[] meanScores = new double[names.length];
+			for (int i = 0; i < names.length; i++) {
+				meanScores[i] = stats[i].getMean();
+				System.out.printf("Player \"%s\": ", names[i]);
+				printStatistics(stats[i]);
 			}
+			addNormalizedScores(names, meanScores, tournamentScores);
 		}
-		double max = Double.NEGATIVE_INFINITY;
-		for (double score : tournamentScores) {
-			if (score > max)
-				max = score;
+		printTournamentScores(names, tournamentScores);
+		return tournamentScores;
+	}
+	
+	/**
+	 * Return whether or not the ranking of the given player is settled, i.e. whether or not, after at least
+	 * {@link ScoreStatistics#MIN_GAMES} games, the 95% confidence interval of its mean score is disjoint from those of
+	 * all other players.
+	 * @param stats score statistics of each player
+	 * @param i player index
+	 * @return whether or not the ranking of the given player is settled
+	 */
+	private static boolean isRankSettled(ScoreStatistics[] stats, int i) {
+		if (stats[i].getCount() < ScoreStatistics.MIN_GAMES)
+			return false;
+		for (int j = 0; j < stats.length; j++)
+			if (j != i && !stats[i].isSeparatedFrom(stats[j], ScoreStatistics.Z_95))
+				return false;
+		return true;
+	}
+	
+	/**
+	 * Hold a Poker Squares tournament as in {@link #playTournament(ArrayList, ArrayList, int, long)}, playing the
+	 * games of each player-system pair in parallel on the given executor (see
+	 * {@link #playSequence(Supplier, PokerSquaresPointSystem, int, long, ExecutorService)}).  Each factory must create
+	 * new, independent instances of the same player.
+	 * @param playerFactories factories for the Poker Squares players taking part in the tournament
+	 * @param systems Poker Squares point systems used to evaluate players in the tournament
+	 * @param gamesPerSystem the number of games that will be played by each player with each point system
+	 * @param startSeed the start seed for the pseudorandom number generator that generates card deals
+	 * @param executor executor (e.g. a ForkJoinPool) on which games are played
+	 * @return the sum of the tournament scores for each of the given players
+	 */
+	public static double[] playTournament(
+			List<? extends Supplier<? extends PokerSquaresPlayer>> playerFactories,
+			ArrayList<PokerSquaresPointSystem> systems,
+			int gamesPerSystem, long startSeed, ExecutorService executor) {
+		String[] names = new String[playerFactories.size()];
+		for (int i = 0; i < names.length; i++)
+			names[i] = playerFactories.get(i).get().getName();
+		double[] tournamentScores = new double[names.length];
+		for (PokerSquaresPointSystem system : systems) { // for each point system
+			System.out.println("Point System:\n" + system);
+			int[] totalScores = new int[names.length];
+			for (int i = 0; i < names.length; i++) { // for each player
+				System.out.printf("Player: \"%s\"\n", names[i]);
+				int[] scores = playSequence(playerFactories.get(i), system, gamesPerSystem, startSeed, executor);
+				for (int score : scores)
+					totalScores[i] += score;
+				System.out.printf("Player \"%s\" total score: %d\n", names[i], totalScores[i]);
+			}
+			addNormalizedScores(names, totalScores, tournamentScores);
 		}
+		printTournamentScores(names, tournamentScores);
+		return tournamentScores;
+	}
+	
+	/**
+	 * Return the names of the given players.
+	 * @param players Poker Squares players
+	 * @return the names of the given players
+	 */
+	private static String[] getNames(List<PokerSquaresPlayer> players) {
+		String[] names = new String[players.size()];
+		for (int i = 0; i < names.length; i++)
+			names[i] = players.get(i).getName();
+		return names;
+	}
+	
+	/**
+	 * Linearly scale the total scores of one point system so that the maximum and minimum totals map to 1.0 and 0.0,
+	 * reporting and adding the scaled scores to the tournament scores.
+	 * @param names player names
+	 * @param totalScores total score of each player under one point system
+	 * @param tournamentScores tournament score of each player so far
+	 */
+	private static void addNormalizedScores(String[] names, int[] totalScores, double[] tournamentScores) {
+		double[] totals = new double[totalScores.length];
+		for (int i = 0; i < totals.length; i++)
+			totals[i] = totalScores[i];
+		addNormalizedScores(names, totals, tournamentScores);
+	}
+	
+	/**
+	 * Linearly scale the total (or mean) scores of one point system so that the maximum and minimum map to 1.0 and
+	 * 0.0, reporting and adding the scaled scores to the tournament scores.
+	 * @param names player names
+	 * @param totalScores total (or mean) score of each player under one point system
+	 * @param tournamentScores tournament score of each player so far
+	 */
+	static void addNormalizedScores(String[] names, double[] totalScores, double[] tournamentScores) {
+		double maxTotal = Double.NEGATIVE_INFINITY;
+		double minTotal = Double.POSITIVE_INFINITY;
+		for (double totalScore : totalScores) {
+			if (totalScore > maxTotal)
+				maxTotal = totalScore;
+			if (totalScore < minTotal)
+				minTotal = totalScore;				
+		}
+		for (int i = 0; i < names.length; i++) { // for each player
+			double normalizedTotal = (totalScores[i] - minTotal) / (maxTotal - minTotal);
+			System.out.println("Player \"" + names[i] + "\" normalized score: " + normalizedTotal);
+			tournamentScores[i] += normalizedTotal;
+		}
+	}
+	
+	/**
+	 * Print the tournament score of each player.
+	 * @param names player names
+	 * @param tournamentScores tournament score of each player
+	 */
+	static void printTournamentScores(String[] names, double[] tournamentScores) {
 		System.out.printf("%20s %s\n", "Player", "Tournament Score");
-		for (int i = 0; i < players.size(); i++) { // for each player
-			System.out.printf("%20s %f\n", players.get(i).getName(), tournamentScores[i]);
+		for (int i = 0; i < names.length; i++) { // for each player
+			System.out.printf("%20s %f\n", names[i], tournamentScores[i]);
 		}
-		
-		return tournamentScores;
 	}
 	
 	/**
@@ -290,6 +590,44 @@ public class PokerSquares {
 	 */
 	private void setSeed(long seed) {
 		random.setSeed(seed);
+		this.seed = seed;
+		seeded = true;
+	}
+	
+	/**
+	 * Set the deal corpus from which all subsequent seeded games (e.g. those of playSequence and playTournament) read
+	 * their deals instead of shuffling.  The deals differ from shuffled deals of the same seeds, but are those of
+	 * {@link GameRunner}, so games are comparable across engines, runs and processes sharing the corpus.
+	 * @param corpus precomputed deals holding the seeds of all subsequent seeded games (or null to shuffle)
+	 */
+	public static void setDealCorpus(DealCorpus corpus) {
+		dealCorpus = corpus;
+	}
+	
+	/**
+	 * Set what players are charged for in all subsequent games.  In CPU mode (see {@link PlayTimer}), concurrent
+	 * games and background threads do not use up a player's time, so many games can run per machine without skewing
+	 * scores; the contest charges wall-clock time.
+	 * @param mode what players are charged for
+	 */
+	public static void setChargeMode(PlayTimer.Mode mode) {
+		chargeMode = mode;
+	}
+	
+	/**
+	 * Return what players are charged for.
+	 * @return what players are charged for
+	 */
+	public static PlayTimer.Mode getChargeMode() {
+		return chargeMode;
+	}
+	
+	/**
+	 * Return the deal corpus of seeded games.
+	 * @return the deal corpus of seeded games (or null if deals are shuffled)
+	 */
+	public static DealCorpus getDealCorpus() {
+		return dealCorpus;
 	}
 	
 	
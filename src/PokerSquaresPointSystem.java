@@ -1,3 +1,5 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
 import java.util.Random;
 
 
@@ -11,6 +13,7 @@ public class PokerSquaresPointSystem {
 	private static final int MIN_HAND_SCORE = -128; // maximum permissible hand score
 	private static final int SIZE = PokerSquares.SIZE; // Poker Squares number of rows/columns
 	private final int[] scores; // scores for each corresponding hand classification id number
+	private volatile CompiledPointSystem compiled; // scoring kernel specialized to this point system, compiled on first use
 	
 	/**
 	 * Create a point system given an array of hand scores. The score at index n corresponds to the score for 
@@ -30,7 +33,7 @@ public class PokerSquaresPointSystem {
 	 * @return score of given Card hand.
 	 */
 	public int getHandScore(Card[] hand) {
-		return scores[PokerHand.getPokerHandId(hand)];
+		return scores[HandClassifier.getPokerHandId(hand)];
 	}
 	
 	/**
@@ -60,15 +63,26 @@ public class PokerSquaresPointSystem {
 	}
 	
 	/**
-	 * Get the score of the given Card grid.
+	 * Return the scoring kernel specialized to this point system, compiling it on first use.  The kernel is shared
+	 * by all point systems with the same score table, so the score table should not change once compiled.
+	 * @return the scoring kernel specialized to this point system
+	 */
+	public CompiledPointSystem getCompiledPointSystem() {
+		CompiledPointSystem kernel = compiled;
+		if (kernel == null)
+			compiled = kernel = CompiledPointSystem.forPointSystem(this);
+		return kernel;
+	}
+	
+	/**
+	 * Get the score of the given Card grid.  No objects are allocated.
 	 * @param grid Card grid
 	 * @return score of given Card grid
 	 */
 	public int getScore(Card[][] grid) {
-		int[] handScores = getHandScores(grid);
 		int totalScore = 0;
-		for (int handScore : handScores)
-			totalScore += handScore;
+		for (int i = 0; i < SIZE; i++)
+			totalScore += getRowScore(grid, i) + getColumnScore(grid, i);
 		return totalScore;
 	}
 	
@@ -78,20 +92,116 @@ public class PokerSquaresPointSystem {
 	 * @return an int array with the individual hand scores of rows 0 through 4 followed by columns 0 through 4. 
 	 */
 	public int[] getHandScores(Card[][] grid) {
-		int[] handScores = new int[2 * SIZE];
-		for (int row = 0; row < SIZE; row++) {
-			Card[] hand = new Card[SIZE];
-			for (int col = 0; col < SIZE; col++)
-				hand[col] = grid[row][col];
-			handScores[row] = getHandScore(hand);
+		return getHandScores(grid, new int[2 * SIZE]);
+	}
+	
+	/**
+	 * Fill the given int array with the individual hand scores of rows 0 through 4 followed by columns 0 through 4.
+	 * No objects are allocated.
+	 * @param grid 2D Card array representing play grid
+	 * @param handScores an int array of length at least 10 to fill with hand scores
+	 * @return the given array filled with the individual hand scores of rows 0 through 4 followed by columns 0 through 4
+	 */
+	public int[] getHandScores(Card[][] grid, int[] handScores) {
+		for (int i = 0; i < SIZE; i++) {
+			handScores[i] = getRowScore(grid, i);
+			handScores[SIZE + i] = getColumnScore(grid, i);
 		}
+		return handScores;
+	}
+	
+	/**
+	 * Get the hand score of the given row of the given Card grid.
+	 * @param grid 2D Card array representing play grid
+	 * @param row row index
+	 * @return hand score of the given row
+	 */
+	private int getRowScore(Card[][] grid, int row) {
+		int rankKey = 0, suitKey = 0;
 		for (int col = 0; col < SIZE; col++) {
-			Card[] hand = new Card[SIZE];
-			for (int row = 0; row < SIZE; row++)
-				hand[row] = grid[row][col];
-			handScores[SIZE + col] = getHandScore(hand);
+			Card card = grid[row][col];
+			if (card != null) {
+				rankKey += HandClassifier.CARD_RANK_KEYS[card.getCardId()];
+				suitKey += HandClassifier.CARD_SUIT_KEYS[card.getCardId()];
+			}
 		}
-		return handScores;
+		return getLineScore(rankKey, suitKey);
+	}
+	
+	/**
+	 * Get the hand score of the given column of the given Card grid.
+	 * @param grid 2D Card array representing play grid
+	 * @param col column index
+	 * @return hand score of the given column
+	 */
+	private int getColumnScore(Card[][] grid, int col) {
+		int rankKey = 0, suitKey = 0;
+		for (int row = 0; row < SIZE; row++) {
+			Card card = grid[row][col];
+			if (card != null) {
+				rankKey += HandClassifier.CARD_RANK_KEYS[card.getCardId()];
+				suitKey += HandClassifier.CARD_SUIT_KEYS[card.getCardId()];
+			}
+		}
+		return getLineScore(rankKey, suitKey);
+	}
+	
+	/**
+	 * Get the score of a line given the {@link HandClassifier} rank and suit key sums of its cards.
+	 * @param rankKey sum of the rank keys of the cards of the line
+	 * @param suitKey sum of the suit keys of the cards of the line
+	 * @return score of the line
+	 */
+	public int getLineScore(int rankKey, int suitKey) {
+		return getCompiledPointSystem().getLineScore(rankKey, suitKey);
+	}
+	
+	/**
+	 * Get the change in grid score that would result from placing the given card in the given empty position.
+	 * Only the row and column of the position are rescored, and the grid is not modified.
+	 * @param grid Card grid
+	 * @param row row of an empty position
+	 * @param col column of an empty position
+	 * @param card card to place
+	 * @return change in grid score from placing the card
+	 */
+	public int scoreDelta(Card[][] grid, int row, int col, Card card) {
+		int rowRankKey = 0, rowSuitKey = 0, colRankKey = 0, colSuitKey = 0;
+		for (int i = 0; i < SIZE; i++) {
+			Card rowCard = grid[row][i];
+			if (rowCard != null) {
+				rowRankKey += HandClassifier.CARD_RANK_KEYS[rowCard.getCardId()];
+				rowSuitKey += HandClassifier.CARD_SUIT_KEYS[rowCard.getCardId()];
+			}
+			Card colCard = grid[i][col];
+			if (colCard != null) {
+				colRankKey += HandClassifier.CARD_RANK_KEYS[colCard.getCardId()];
+				colSuitKey += HandClassifier.CARD_SUIT_KEYS[colCard.getCardId()];
+			}
+		}
+		int rankKey = HandClassifier.CARD_RANK_KEYS[card.getCardId()];
+		int suitKey = HandClassifier.CARD_SUIT_KEYS[card.getCardId()];
+		return getLineScore(rowRankKey + rankKey, rowSuitKey + suitKey) - getLineScore(rowRankKey, rowSuitKey)
+				+ getLineScore(colRankKey + rankKey, colSuitKey + suitKey) - getLineScore(colRankKey, colSuitKey);
+	}
+	
+	/**
+	 * Get the score of the given line of the given grid state.
+	 * @param state grid state
+	 * @param line line index (rows 0 through 4, then columns 0 through 4)
+	 * @return score of the given line
+	 */
+	public int getHandScore(GridState state, int line) {
+		return getCompiledPointSystem().getLineScore(state, line);
+	}
+	
+	/**
+	 * Get the score of the given grid state.
+	 * @param state grid state
+	 * @return score of given grid state
+	 */
+	public int getScore(GridState state) {
+		return getCompiledPointSystem().getScore(state);
 	}
 	
 	/**
@@ -186,6 +296,15 @@ public class PokerSquaresPointSystem {
 	 * @param grid given game grid 
 	 */
 	public void printGrid(Card[][] grid) {
+		printGrid(grid, System.out);
+	}
+	
+	/**
+	 * Print the given game grid and score to the given stream.
+	 * @param grid given game grid 
+	 * @param out output stream
+	 */
+	public void printGrid(Card[][] grid, PrintStream out) {
 		// get scores
 		int[] handScores = getHandScores(grid);
 		int totalScore = 0;
@@ -195,12 +314,12 @@ public class PokerSquaresPointSystem {
 		// print grid
 		for (int row = 0; row < SIZE; row++) {
 			for (int col = 0; col < SIZE; col++) 
-				System.out.printf(" %s ", grid[row][col] == null ? "--" : grid[row][col].toString());
-			System.out.printf("%3d\n", handScores[row]);
+				out.printf(" %s ", grid[row][col] == null ? "--" : grid[row][col].toString());
+			out.printf("%3d\n", handScores[row]);
 		}
 		for (int col = 0; col < SIZE; col++) 
-			System.out.printf("%3d ", handScores[SIZE + col]);
-		System.out.printf("%3d Total\n", totalScore);
+			out.printf("%3d ", handScores[SIZE + col]);
+		out.printf("%3d Total\n", totalScore);
 	}
 	
 	
@@ -217,7 +336,43 @@ public class PokerSquaresPointSystem {
 	}
 	
 	/**
-	 * Demonstrate the different point systems that may be generated.
+	 * Check that getScore() and getHandScores() with a caller-supplied buffer allocate nothing once warmed up, using
+	 * the per-thread allocation counter of the HotSpot ThreadMXBean.
+	 * @throws IllegalStateException if either allocates after warm-up
+	 */
+	private static void checkAllocationFree() {
+		PokerSquaresPointSystem system = getAmericanPointSystem();
+		Card[] deck = Card.getAllCards();
+		Card[][][] grids = new Card[64][SIZE][SIZE];
+		Random random = new Random(0);
+		for (Card[][] grid : grids)
+			for (int cell = 0; cell < SIZE * SIZE; cell++)
+				if (random.nextBoolean())
+					grid[cell / SIZE][cell % SIZE] = deck[random.nextInt(deck.length)];
+		int[] handScores = new int[2 * SIZE];
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		long total = 0;
+		for (int round = 0; round < 2; round++) { // warm up, then measure
+			long scoreBytes = threads.getThreadAllocatedBytes(threadId);
+			for (int i = 0; i < 100000; i++)
+				total += system.getScore(grids[i & 63]);
+			scoreBytes = threads.getThreadAllocatedBytes(threadId) - scoreBytes;
+			long handScoresBytes = threads.getThreadAllocatedBytes(threadId);
+			for (int i = 0; i < 100000; i++)
+				total += system.getHandScores(grids[i & 63], handScores)[0];
+			handScoresBytes = threads.getThreadAllocatedBytes(threadId) - handScoresBytes;
+			if (round == 1) {
+				System.out.printf("Bytes allocated by 100000 calls: getScore %d, getHandScores(buffer) %d (checksum %d)\n",
+						scoreBytes, handScoresBytes, total);
+				if (scoreBytes != 0 || handScoresBytes != 0)
+					throw new IllegalStateException("Scoring allocated after warm-up");
+			}
+		}
+	}
+
+	/**
+	 * Demonstrate the different point systems that may be generated, then check that scoring is allocation-free.
 	 * @param args (not used)
 	 */
 	public static void main(String[] args) {
@@ -229,5 +384,6 @@ public class PokerSquaresPointSystem {
 		System.out.println(getAmericanPointSystem());
 		System.out.println(getBritishPointSystem());
 		System.out.println(getAmeritishPointSystem());
+		checkAllocationFree();
 	}
 }
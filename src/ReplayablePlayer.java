@@ -0,0 +1,16 @@
+/**
+ * ReplayablePlayer - a Poker Squares player that can be placed in a given position, so that its decisions can be
+ * evaluated from positions of recorded games (see {@link GameReplay}).
+ * After init(), a game may begin with calls to makePlay(Card, int, int) before the calls to getPlay(Card, long).
+ */
+public interface ReplayablePlayer extends PokerSquaresPlayer {
+
+	/**
+	 * makePlay - records the play of a card drawn from the game deck at a position the player did not choose.
+	 * @param card - card drawn
+	 * @param row - row of the play
+	 * @param col - column of the play
+	 */
+	void makePlay(Card card, int row, int col);
+
+}
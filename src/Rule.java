@@ -1,16 +1,24 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Predicate;
 
 public class Rule implements Node {
 
     private final int HAND_SIZE = 5;
+    // per thread, exact flush and straight probability engines (see setExactPotential)
+    private static final ThreadLocal<HandPotential[]> potentials = ThreadLocal.withInitial(() -> new HandPotential[] {
+            new HandPotential(PokerSquaresPointSystem.getSingleHandPointSystem(PokerHand.FLUSH.id)),
+            new HandPotential(PokerSquaresPointSystem.getSingleHandPointSystem(PokerHand.STRAIGHT.id))});
+    private static volatile boolean exactPotential = false; // whether flush/straight rules use exact expectations
     private final int FLUSH_SCORE;
     private final int STRAIGHT_SCORE;
     private final PokerSquaresPointSystem system;
     private Node leftChild;
     private Node rightChild;
     private Node parent;
-    private Random randomGenerator;
+    private FastRandom randomGenerator; // for construction and ties; each clone continues its own copy
     private boolean row;
     private int rc;
     private int pointThresh;
@@ -19,6 +27,15 @@ public class Rule implements Node {
 
 
     public Rule(PokerSquaresPointSystem system, Integer id) {
+        this(system, id, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Creates a random rule drawing from a generator with the given seed,
+     * so that a seeded evolution creates the same rules.
+     * @param seed seed of the rule's random number generator
+     */
+    Rule(PokerSquaresPointSystem system, Integer id, long seed) {
         this.id = id;
         this.system = system;
 
@@ -29,7 +46,7 @@ public class Rule implements Node {
         // threshold is the median score
         pointThresh = scores[scores.length/4];
 
-        randomGenerator = new Random();
+        randomGenerator = new FastRandom(seed);
         // determine if checking row or column
         boolean randBool = randomGenerator.nextBoolean();
         row = randBool;
@@ -41,6 +58,32 @@ public class Rule implements Node {
         ruleType = decideType();
     }
 
+    /**
+     * Recreates a rule with the given properties (e.g. read from a checkpoint).
+     * @param row whether the rule checks rows (true) or columns (false)
+     * @param rc which row or column to check
+     * @param ruleType the type of this rule (see decideType)
+     * @param seed state of the rule's random number generator
+     */
+    Rule(PokerSquaresPointSystem system, Integer id, boolean row, int rc, String ruleType, long seed) {
+        this(system, id, seed);
+        this.row = row;
+        this.rc = rc;
+        this.ruleType = ruleType.intern(); // types are compared by reference
+        randomGenerator.setSeed(seed);
+    }
+
+    /**
+     * Sets whether flush and straight rules score the potential hand by its exact expected flush or straight
+     * points over the undealt deck ({@link HandPotential}) instead of the suitCheck and seqCheck estimates.
+     * Off by default, so that evolved trees keep their meaning.
+     * @param exact whether to use exact expectations
+     */
+    public static void setExactPotential(boolean exact) {
+        exactPotential = exact;
+    }
+
+
     /**
      * @return A String that determines the type of this rule.
      */
@@ -188,6 +231,9 @@ public class Rule implements Node {
         Card[] potentialHand = grid[rowChoice].clone();
         int handLength = preferenceList[temprc][0];
         potentialHand[handLength] = curCard;
+        if (exactPotential && ruleType != "place in hand") {
+            return potentialCheck(grid, curCard, potentialHand) > pointThresh;
+        }
         int handScore = system.getHandScore(potentialHand);
         int suitScore = suitCheck(potentialHand);
         int seqScore = seqCheck(potentialHand);
@@ -223,6 +269,9 @@ public class Rule implements Node {
             potentialHand[i] = grid[columnChoice][i];
         }
         potentialHand[handLength] = curCard;
+        if (exactPotential && ruleType != "place in hand") {
+            return potentialCheck(grid, curCard, potentialHand) > pointThresh;
+        }
         int handScore = system.getHandScore(potentialHand);
         int suitScore = suitCheck(potentialHand);
         int seqScore = seqCheck(potentialHand);
@@ -232,6 +281,35 @@ public class Rule implements Node {
     }
 
 
+    /**
+     * Computes the exact expected flush or straight points (by rule type) of the given potential hand once its
+     * empty positions are filled from the cards not in the grid and not the current card.
+     * @return The expected points of the rule's hand type.
+     */
+    private double potentialCheck(Card[][] grid, Card curCard, Card[] hand) {
+        HandPotential potential = potentials.get()[ruleType == "flush" ? 0 : 1];
+        potential.reset();
+        for (Card[] gridRow : grid) {
+            for (Card card : gridRow) {
+                if (card != null) potential.deal(card.getCardId());
+            }
+        }
+        potential.deal(curCard.getCardId());
+        int rankKey = 0;
+        int suitKey = 0;
+        int numCards = 0;
+        for (Card card : hand) {
+            if (card != null) {
+                rankKey += HandClassifier.getRankKey(card.getCardId());
+                suitKey += HandClassifier.getSuitKey(card.getCardId());
+                numCards++;
+            }
+        }
+        int score = ruleType == "flush" ? FLUSH_SCORE : STRAIGHT_SCORE;
+        return score * potential.getExpectedScore(rankKey, suitKey, HAND_SIZE - numCards);
+    }
+
+
     /**
      * Checks for groups of suits in the hand, and then
      * determines whether there is a flush. If there is a
@@ -326,11 +404,28 @@ public class Rule implements Node {
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeByte(Chromosome.RULE);
+        out.writeInt(id);
+        out.writeBoolean(row);
+        out.writeByte(rc);
+        out.writeUTF(ruleType);
+        out.writeLong(randomGenerator.getSeed());
+        leftChild.writeTo(out);
+        rightChild.writeTo(out);
+    }
+
+
     /**
      * {@inheritDoc}
      */
     public Object clone() throws CloneNotSupportedException {
-        return super.clone();
+        Rule clone = (Rule) super.clone();
+        clone.randomGenerator = new FastRandom(randomGenerator.getSeed());
+        return clone;
     }
 
 
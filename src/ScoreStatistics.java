@@ -0,0 +1,203 @@
+import java.util.Arrays;
+
+/**
+ * ScoreStatistics - A streaming accumulator of game scores.
+ *
+ * Scores are added one at a time.  The mean and variance are maintained with Welford's algorithm, and a histogram of
+ * the integer scores seen supports exact percentiles, so no score array need be kept.  Accumulators of disjoint
+ * score sets may be merged.  Confidence intervals of the mean use the normal approximation, which is accurate for the
+ * numbers of games (at least MIN_GAMES) played before stopping early on them.
+ */
+public class ScoreStatistics {
+
+	/**
+	 * the z value of a two-sided 95% confidence interval
+	 */
+	public static final double Z_95 = 1.959964;
+	/**
+	 * the minimum number of scores before a confidence interval is trusted for early stopping
+	 */
+	public static final int MIN_GAMES = 30;
+
+	private long count; // number of scores
+	private double mean; // mean of scores
+	private double m2; // sum of squared differences from the mean
+	private int min = Integer.MAX_VALUE; // minimum score
+	private int max = Integer.MIN_VALUE; // maximum score
+	private long[] histogram = new long[0]; // histogram[score - offset] is the number of occurrences of score
+	private int offset; // score of histogram[0]
+
+	/**
+	 * Add a score.
+	 * @param score game score
+	 */
+	public void add(int score) {
+		count++;
+		double delta = score - mean;
+		mean += delta / count;
+		m2 += delta * (score - mean);
+		if (score < min || score > max) {
+			min = Math.min(min, score);
+			max = Math.max(max, score);
+			growHistogram();
+		}
+		histogram[score - offset]++;
+	}
+
+	/**
+	 * Add all of the given scores.
+	 * @param scores game scores
+	 */
+	public void addAll(int[] scores) {
+		for (int score : scores)
+			add(score);
+	}
+
+	/**
+	 * Merge the scores of another accumulator into this one.
+	 * @param other accumulator of scores disjoint from those of this one
+	 */
+	public void merge(ScoreStatistics other) {
+		if (other.count == 0)
+			return;
+		long n = count + other.count;
+		double delta = other.mean - mean;
+		mean += delta * other.count / n;
+		m2 += other.m2 + delta * delta * ((double) count * other.count / n);
+		count = n;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		growHistogram();
+		for (int i = 0; i < other.histogram.length; i++)
+			histogram[i + other.offset - offset] += other.histogram[i];
+	}
+
+	/**
+	 * Resize the histogram to cover exactly the scores from min to max.
+	 */
+	private void growHistogram() {
+		long[] newHistogram = new long[max - min + 1];
+		if (histogram.length > 0)
+			System.arraycopy(histogram, 0, newHistogram, offset - min, histogram.length);
+		histogram = newHistogram;
+		offset = min;
+	}
+
+	/**
+	 * Return the number of scores.
+	 * @return the number of scores
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Return the mean score.
+	 * @return the mean score (NaN if there are no scores)
+	 */
+	public double getMean() {
+		return count == 0 ? Double.NaN : mean;
+	}
+
+	/**
+	 * Return the population variance of the scores.
+	 * @return the population variance of the scores
+	 */
+	public double getVariance() {
+		return count == 0 ? Double.NaN : m2 / count;
+	}
+
+	/**
+	 * Return the population standard deviation of the scores.
+	 * @return the population standard deviation of the scores
+	 */
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * Return the standard error of the mean, using the sample variance.
+	 * @return the standard error of the mean (infinite for fewer than two scores)
+	 */
+	public double getStandardError() {
+		return count < 2 ? Double.POSITIVE_INFINITY : Math.sqrt(m2 / (count - 1) / count);
+	}
+
+	/**
+	 * Return the half-width of the confidence interval of the mean.
+	 * @param z z value of the confidence level (e.g. Z_95)
+	 * @return the half-width of the confidence interval of the mean
+	 */
+	public double getHalfWidth(double z) {
+		return z * getStandardError();
+	}
+
+	/**
+	 * Return whether or not the confidence intervals of the means of this and another accumulator are disjoint,
+	 * i.e. whether or not their ranking is settled.
+	 * @param other another accumulator
+	 * @param z z value of the confidence level (e.g. Z_95)
+	 * @return whether or not the confidence intervals of the means are disjoint
+	 */
+	public boolean isSeparatedFrom(ScoreStatistics other, double z) {
+		return Math.abs(getMean() - other.getMean()) > getHalfWidth(z) + other.getHalfWidth(z);
+	}
+
+	/**
+	 * Return the minimum score.
+	 * @return the minimum score
+	 */
+	public int getMin() {
+		return min;
+	}
+
+	/**
+	 * Return the maximum score.
+	 * @return the maximum score
+	 */
+	public int getMax() {
+		return max;
+	}
+
+	/**
+	 * Return the number of occurrences of the given score.
+	 * @param score game score
+	 * @return the number of occurrences of the given score
+	 */
+	public long getFrequency(int score) {
+		return score < min || score > max ? 0 : histogram[score - offset];
+	}
+
+	/**
+	 * Return the given percentile of the scores, i.e. the least score such that at least the given percentage of
+	 * scores are less than or equal to it.
+	 * @param percent percentage in [0, 100]
+	 * @return the given percentile of the scores
+	 */
+	public int getPercentile(double percent) {
+		if (count == 0)
+			throw new IllegalStateException("No scores");
+		long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+		long cumulative = 0;
+		for (int i = 0; i < histogram.length; i++) {
+			cumulative += histogram[i];
+			if (cumulative >= rank)
+				return i + offset;
+		}
+		return max;
+	}
+
+	/**
+	 * Return the histogram of scores from getMin() to getMax().
+	 * @return the histogram of scores from getMin() to getMax()
+	 */
+	public long[] getHistogram() {
+		return Arrays.copyOf(histogram, histogram.length);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Score Mean: %f, Standard Deviation: %f, Minimum: %d, Maximum: %d", getMean(),
+				getStandardDeviation(), min, max);
+	}
+}
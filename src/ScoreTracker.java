@@ -0,0 +1,138 @@
+/**
+ * ScoreTracker - Maintains the ten line scores and total score of a Poker Squares grid under a given point system
+ * as cards are placed and placements are undone.
+ *
+ * A placement can only change the score of the row and column of its cell, so each {@link #place(int, int)} and
+ * {@link #undo()} rescores exactly two lines, and {@link #scoreDelta(int, int)} evaluates a candidate placement
+ * without changing the grid.  Lines are ordered rows 0 through 4 followed by columns 0 through 4, as in
+ * {@link PokerSquaresPointSystem#getHandScores(Card[][])}.
+ */
+public class ScoreTracker {
+
+	private final PokerSquaresPointSystem system; // point system
+	private final CompiledPointSystem kernel; // scoring kernel of the point system
+	private final GridState state = new GridState(); // current grid
+	private final int[] lineScores = new int[GridState.NUM_LINES]; // current score of each line
+	private int score; // current total score
+
+	/**
+	 * Create a score tracker for an empty grid under the given point system.
+	 * @param system point system
+	 */
+	public ScoreTracker(PokerSquaresPointSystem system) {
+		this.system = system;
+		this.kernel = system.getCompiledPointSystem();
+		clear();
+	}
+
+	/**
+	 * Remove all cards from the grid.
+	 */
+	public void clear() {
+		state.clear();
+		score = 0;
+		for (int line = 0; line < GridState.NUM_LINES; line++) {
+			lineScores[line] = kernel.getLineScore(state, line);
+			score += lineScores[line];
+		}
+	}
+
+	/**
+	 * Replace the tracked grid with the given Card grid.
+	 * @param grid 2D Card array representing play grid (null for empty positions)
+	 */
+	public void setGrid(Card[][] grid) {
+		clear();
+		for (int row = 0; row < GridState.SIZE; row++)
+			for (int col = 0; col < GridState.SIZE; col++)
+				if (grid[row][col] != null)
+					place(row * GridState.SIZE + col, grid[row][col].getCardId());
+	}
+
+	/**
+	 * Place the given card in the given empty cell, updating the scores of its row and column.
+	 * @param cell row-major cell index of an empty cell
+	 * @param cardId card identification number of a card not yet placed
+	 */
+	public void place(int cell, int cardId) {
+		state.place(cell, cardId);
+		rescore(GridState.getRowLine(cell));
+		rescore(GridState.getColumnLine(cell));
+	}
+
+	/**
+	 * Place the given card in the given empty position, updating the scores of its row and column.
+	 * @param row row of an empty position
+	 * @param col column of an empty position
+	 * @param card card not yet placed
+	 */
+	public void place(int row, int col, Card card) {
+		place(row * GridState.SIZE + col, card.getCardId());
+	}
+
+	/**
+	 * Undo the most recent placement, restoring the scores of its row and column.
+	 * @return the row-major cell index emptied
+	 */
+	public int undo() {
+		int cell = state.undo();
+		rescore(GridState.getRowLine(cell));
+		rescore(GridState.getColumnLine(cell));
+		return cell;
+	}
+
+	private void rescore(int line) {
+		int lineScore = kernel.getLineScore(state, line);
+		score += lineScore - lineScores[line];
+		lineScores[line] = lineScore;
+	}
+
+	/**
+	 * Return the change in total score that placing the given card in the given empty cell would cause.
+	 * The grid is not changed.
+	 * @param cell row-major cell index of an empty cell
+	 * @param cardId card identification number of a card not yet placed
+	 * @return the change in total score from the placement
+	 */
+	public int scoreDelta(int cell, int cardId) {
+		int rankKey = HandClassifier.CARD_RANK_KEYS[cardId];
+		int suitKey = HandClassifier.CARD_SUIT_KEYS[cardId];
+		int row = GridState.getRowLine(cell);
+		int col = GridState.getColumnLine(cell);
+		return kernel.getLineScore(state.getRankKey(row) + rankKey, state.getSuitCounts(row) + suitKey) - lineScores[row]
+				+ kernel.getLineScore(state.getRankKey(col) + rankKey, state.getSuitCounts(col) + suitKey) - lineScores[col];
+	}
+
+	/**
+	 * Return the current total score.
+	 * @return the current total score
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * Return the current score of the given line.
+	 * @param line line index (rows 0 through 4, then columns 0 through 4)
+	 * @return the current score of the given line
+	 */
+	public int getLineScore(int line) {
+		return lineScores[line];
+	}
+
+	/**
+	 * Return the tracked grid state.  It should not be modified other than through this tracker.
+	 * @return the tracked grid state
+	 */
+	public GridState getState() {
+		return state;
+	}
+
+	/**
+	 * Return the point system of this tracker.
+	 * @return the point system of this tracker
+	 */
+	public PokerSquaresPointSystem getPointSystem() {
+		return system;
+	}
+}
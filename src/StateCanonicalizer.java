@@ -0,0 +1,362 @@
+import java.util.HashSet;
+
+/**
+ * StateCanonicalizer - Maps Poker Squares states to canonical representatives of their symmetry classes.
+ *
+ * The final score of a game, and so the value of any state, is unchanged by permuting the rows, permuting the columns,
+ * transposing the grid, or relabeling the suits, since every point system scores rows and columns alike and only
+ * distinguishes suits by equality.  The remaining deck is the set of cards not placed, so it follows the grid.  The
+ * canonical representative of a state (a grid and, optionally, the card in hand) is the one with the lexicographically
+ * smallest encoding: cells in row-major order, each encoded as empty or by rank and suit label, then the card in hand.
+ *
+ * Rather than trying all 2 * 5! * 5! * 4! symmetries, rows are sorted by signatures that no symmetry changes (the
+ * multiset of ranks and the sorted suit counts of each line), and only orders of non-empty rows with equal signatures
+ * are enumerated.  For each row order, columns are sorted by their signatures and then by their ranks in that row
+ * order, and only orders of columns equal in both are enumerated; for each resulting order, the smallest suit labeling
+ * is the order of first appearance.  Since every step depends only on symmetry-invariant properties, equivalent states
+ * are encoded in corresponding orders, and their smallest encodings agree.  Most states have few ties, so
+ * canonicalization usually encodes the grid only a few times.
+ *
+ * A canonicalizer keeps scratch state, so each thread should use its own instance.  Typical use, keying a table by
+ * symmetry class:
+ * <pre>
+ * long key = canonicalizer.getCanonicalHash(state, cardId);
+ * </pre>
+ */
+public class StateCanonicalizer {
+
+	private static final int SIZE = GridState.SIZE; // number of rows/columns in square grid
+	private static final int NUM_CELLS = GridState.NUM_CELLS; // number of cells in square grid
+	private static final int NUM_SUITS = Card.NUM_SUITS; // number of suits
+	private static final int NUM_RANKS = Card.NUM_RANKS; // number of ranks
+	private static final int SUIT_COUNT_BITS = 3; // bits per suit count in packed suit counts (as in GridState)
+	private static final int EMPTY_CODE = 0; // encoding of an empty cell or no card in hand
+
+	private final int[] cards = new int[NUM_CELLS]; // card ids of the state being canonicalized, indexed by cell
+	private final long[] rowSignatures = new long[SIZE]; // signature of each line playing the role of a row
+	private final long[] colSignatures = new long[SIZE]; // signature of each line playing the role of a column
+	private final int[] rowOrder = new int[SIZE]; // current order of rows
+	private final int[] colOrder = new int[SIZE]; // current order of columns
+	private final int[] rowClassEnd = new int[SIZE]; // end of the class of rows with equal signatures containing each position
+	private final int[] colClassEnd = new int[SIZE]; // end of the class of columns with equal signatures and ranks containing each position
+	private final long[] colRanks = new long[SIZE]; // ranks of each column in the current row order (for ordering columns)
+	private final int[] suitLabels = new int[NUM_SUITS]; // label of each suit in the current encoding (-1 if unlabeled)
+	private final int[] codes = new int[NUM_CELLS + 1]; // current encoding
+	private final int[] bestCodes = new int[NUM_CELLS + 1]; // smallest encoding found
+	private boolean transposed; // whether or not the current orientation is transposed
+	private boolean found; // whether or not an encoding has been found
+	private int handCardId; // id of the card in hand, or -1
+
+	/**
+	 * Return the Zobrist hash (see {@link GridState#getHash()}) of the canonical representative of the given grid.
+	 * @param state grid state
+	 * @return the hash of the canonical representative of the grid
+	 */
+	public long getCanonicalHash(GridState state) {
+		return getCanonicalHash(state, -1);
+	}
+
+	/**
+	 * Return the Zobrist hash of the canonical representative of the given grid with the given card in hand.  The
+	 * hash of a grid with a card in hand includes the card's key (see {@link GridState#getCardKey(int)}).
+	 * @param state grid state
+	 * @param cardId id of the card in hand, or -1 for none
+	 * @return the hash of the canonical representative of the state
+	 */
+	public long getCanonicalHash(GridState state, int cardId) {
+		canonicalize(state, cardId);
+		long hash = 0L;
+		for (int cell = 0; cell < NUM_CELLS; cell++)
+			if (bestCodes[cell] != EMPTY_CODE)
+				hash ^= GridState.getPlacementKey(cell, getCardId(bestCodes[cell]));
+		if (bestCodes[NUM_CELLS] != EMPTY_CODE)
+			hash ^= GridState.getCardKey(getCardId(bestCodes[NUM_CELLS]));
+		return hash;
+	}
+
+	/**
+	 * Set the given canonical state to the canonical representative of the given grid with the given card in hand,
+	 * and return the canonical card in hand.  Cards of the representative are placed in row-major order.
+	 * @param state grid state
+	 * @param cardId id of the card in hand, or -1 for none
+	 * @param canonical grid state to set to the canonical representative (may not be state)
+	 * @return the id of the canonical card in hand, or -1 for none
+	 */
+	public int getCanonicalState(GridState state, int cardId, GridState canonical) {
+		canonicalize(state, cardId);
+		canonical.clear();
+		for (int cell = 0; cell < NUM_CELLS; cell++)
+			if (bestCodes[cell] != EMPTY_CODE)
+				canonical.place(cell, getCardId(bestCodes[cell]));
+		return bestCodes[NUM_CELLS] == EMPTY_CODE ? -1 : getCardId(bestCodes[NUM_CELLS]);
+	}
+
+	/**
+	 * Return the card id of a nonempty cell encoding.
+	 * @param code cell encoding
+	 * @return the card id, with the suit label as suit
+	 */
+	private static int getCardId(int code) {
+		return (code - 1) % NUM_SUITS * NUM_RANKS + (code - 1) / NUM_SUITS;
+	}
+
+	/**
+	 * Find the smallest encoding of the given state among its symmetries.
+	 * @param state grid state
+	 * @param cardId id of the card in hand, or -1 for none
+	 */
+	private void canonicalize(GridState state, int cardId) {
+		for (int cell = 0; cell < NUM_CELLS; cell++)
+			cards[cell] = state.getCardId(cell);
+		handCardId = cardId;
+		found = false;
+		for (int t = 0; t < 2; t++) {
+			transposed = t == 1;
+			for (int i = 0; i < SIZE; i++) { // rows are lines 0 through SIZE - 1, columns SIZE through 2 * SIZE - 1
+				rowSignatures[i] = getSignature(state, transposed ? SIZE + i : i);
+				colSignatures[i] = getSignature(state, transposed ? i : SIZE + i);
+			}
+			sortBySignature(rowOrder, rowSignatures, null, rowClassEnd);
+			permuteRows(0);
+		}
+	}
+
+	/**
+	 * Return a signature of the given line that no symmetry changes: its packed rank counts and its suit counts in
+	 * decreasing order.  Empty lines have signature 0.
+	 * @param state grid state
+	 * @param line line index
+	 * @return the signature of the line
+	 */
+	private static long getSignature(GridState state, int line) {
+		int suitCounts = state.getSuitCounts(line);
+		int profile = 0;
+		for (int k = 0; k < NUM_SUITS; k++) { // select the largest remaining suit count
+			int max = 0;
+			int maxSuit = 0;
+			for (int suit = 0; suit < NUM_SUITS; suit++) {
+				int count = (suitCounts >>> (SUIT_COUNT_BITS * suit)) & ((1 << SUIT_COUNT_BITS) - 1);
+				if (count > max) {
+					max = count;
+					maxSuit = suit;
+				}
+			}
+			suitCounts -= max << (SUIT_COUNT_BITS * maxSuit);
+			profile = profile << SUIT_COUNT_BITS | max;
+		}
+		return state.getRankCounts(line) << (SUIT_COUNT_BITS * NUM_SUITS) | profile;
+	}
+
+	/**
+	 * Order lines by decreasing signature (so empty lines are last), then by decreasing tie-breaking keys, and record
+	 * the end of each class of non-empty lines equal in both.  Empty lines are never permuted, since permuting them
+	 * leaves the grid unchanged.
+	 * @param order line order to set
+	 * @param signatures signature of each line
+	 * @param keys tie-breaking key of each line (or null for none)
+	 * @param classEnd end of the class of each position to set
+	 */
+	private static void sortBySignature(int[] order, long[] signatures, long[] keys, int[] classEnd) {
+		for (int i = 0; i < SIZE; i++) {
+			int line = i;
+			int j = i;
+			for (; j > 0 && compare(order[j - 1], line, signatures, keys) < 0; j--)
+				order[j] = order[j - 1];
+			order[j] = line;
+		}
+		for (int i = SIZE - 1; i >= 0; i--)
+			classEnd[i] = i + 1 < SIZE && signatures[order[i]] != 0 && compare(order[i + 1], order[i], signatures, keys) == 0
+					? classEnd[i + 1] : i + 1;
+	}
+
+	/**
+	 * Compare two lines by signature, then by tie-breaking key.
+	 * @param a first line
+	 * @param b second line
+	 * @param signatures signature of each line
+	 * @param keys tie-breaking key of each line (or null for none)
+	 * @return a negative number, zero, or a positive number as line a is less than, equal to, or greater than line b
+	 */
+	private static int compare(int a, int b, long[] signatures, long[] keys) {
+		int result = Long.compareUnsigned(signatures[a], signatures[b]);
+		return result != 0 || keys == null ? result : Long.compare(keys[a], keys[b]);
+	}
+
+	/**
+	 * Try each order of the rows from the given position on within their classes.
+	 * @param pos position in the row order
+	 */
+	private void permuteRows(int pos) {
+		if (pos == SIZE) { // order the columns by signature, then by their ranks in this row order
+			for (int col = 0; col < SIZE; col++) {
+				colRanks[col] = 0L;
+				for (int i = 0; i < SIZE; i++) {
+					int row = rowOrder[i];
+					int cardId = cards[transposed ? col * SIZE + row : row * SIZE + col];
+					colRanks[col] = colRanks[col] << 4 | (cardId < 0 ? 0 : 1 + cardId % NUM_RANKS);
+				}
+			}
+			sortBySignature(colOrder, colSignatures, colRanks, colClassEnd);
+			permuteCols(0);
+			return;
+		}
+		for (int i = pos; i < rowClassEnd[pos]; i++) {
+			swap(rowOrder, pos, i);
+			permuteRows(pos + 1);
+			swap(rowOrder, pos, i);
+		}
+	}
+
+	/**
+	 * Try each order of the columns from the given position on within their classes.
+	 * @param pos position in the column order
+	 */
+	private void permuteCols(int pos) {
+		if (pos == SIZE) {
+			encode();
+			return;
+		}
+		for (int i = pos; i < colClassEnd[pos]; i++) {
+			swap(colOrder, pos, i);
+			permuteCols(pos + 1);
+			swap(colOrder, pos, i);
+		}
+	}
+
+	/**
+	 * Encode the grid in the current orientation and row and column orders, labeling suits in order of first
+	 * appearance, and keep the encoding if it is the smallest found.  Encoding stops as soon as it exceeds the
+	 * smallest encoding found.
+	 */
+	private void encode() {
+		for (int suit = 0; suit < NUM_SUITS; suit++)
+			suitLabels[suit] = -1;
+		int numLabels = 0;
+		boolean smaller = !found; // whether or not the encoding so far is smaller than the smallest found
+		for (int i = 0; i <= NUM_CELLS; i++) {
+			int cardId;
+			if (i == NUM_CELLS)
+				cardId = handCardId;
+			else {
+				int row = rowOrder[i / SIZE];
+				int col = colOrder[i % SIZE];
+				cardId = cards[transposed ? col * SIZE + row : row * SIZE + col];
+			}
+			int code = EMPTY_CODE;
+			if (cardId >= 0) {
+				int suit = cardId / NUM_RANKS;
+				if (suitLabels[suit] < 0)
+					suitLabels[suit] = numLabels++;
+				code = 1 + cardId % NUM_RANKS * NUM_SUITS + suitLabels[suit];
+			}
+			if (!smaller) {
+				if (code > bestCodes[i])
+					return;
+				smaller = code < bestCodes[i];
+			}
+			codes[i] = code;
+		}
+		if (smaller) {
+			System.arraycopy(codes, 0, bestCodes, 0, codes.length);
+			found = true;
+		}
+	}
+
+	/**
+	 * Swap two entries of an array.
+	 * @param array array
+	 * @param i first index
+	 * @param j second index
+	 */
+	private static void swap(int[] array, int i, int j) {
+		int value = array[i];
+		array[i] = array[j];
+		array[j] = value;
+	}
+
+	/**
+	 * Return a uniformly random permutation of 0 through n - 1.
+	 * @param random pseudorandom number generator
+	 * @param n number of elements
+	 * @return a random permutation
+	 */
+	private static int[] getRandomPermutation(FastRandom random, int n) {
+		int[] permutation = new int[n];
+		for (int i = 0; i < n; i++)
+			permutation[i] = i;
+		for (int i = n - 1; i > 0; i--)
+			swap(permutation, i, random.nextInt(i + 1));
+		return permutation;
+	}
+
+	/**
+	 * Check that random states of every number of cards, with a card in hand, have the same canonical hash as random
+	 * symmetric transformations of them, and that their canonical states have the same hash; then check that the
+	 * 1,300 states of one card fall into the 13 classes of its rank.  States of the first trials of each number of
+	 * cards use only two suits and repeat ranks, so that many lines tie.
+	 * @param args (not used)
+	 * @throws IllegalStateException if a check fails
+	 */
+	public static void main(String[] args) {
+		StateCanonicalizer canonicalizer = new StateCanonicalizer();
+		FastRandom random = new FastRandom(7);
+		int[] deck = new int[Card.NUM_CARDS];
+		GridState state = new GridState();
+		GridState transformed = new GridState();
+		GridState canonical = new GridState();
+		int numChecked = 0;
+		int mismatches = 0;
+		for (int numCards = 0; numCards <= NUM_CELLS; numCards++)
+			for (int trial = 0; trial < 400; trial++) {
+				GameRunner.deal(random, random.nextLong(), deck);
+				if (trial < 100) // two suits with repeated ranks
+					for (int i = 0; i < Card.NUM_CARDS; i++)
+						deck[i] = i % 2 * NUM_RANKS + deck[i] % NUM_RANKS;
+				int[] cells = getRandomPermutation(random, NUM_CELLS);
+				state.clear();
+				long dealt = 0L;
+				for (int i = 0; i < numCards; i++)
+					if ((dealt & 1L << deck[i]) == 0) {
+						dealt |= 1L << deck[i];
+						state.place(cells[i], deck[i]);
+					}
+				int handCardId = (dealt & 1L << deck[Card.NUM_CARDS - 1]) == 0 ? deck[Card.NUM_CARDS - 1] : -1;
+				int[] rows = getRandomPermutation(random, SIZE);
+				int[] cols = getRandomPermutation(random, SIZE);
+				int[] suits = getRandomPermutation(random, NUM_SUITS);
+				boolean transpose = random.nextBoolean();
+				transformed.clear();
+				for (int cell = 0; cell < NUM_CELLS; cell++) {
+					int cardId = state.getCardId(cell);
+					if (cardId >= 0) {
+						int row = rows[cell / SIZE];
+						int col = cols[cell % SIZE];
+						transformed.place(transpose ? col * SIZE + row : row * SIZE + col,
+								suits[cardId / NUM_RANKS] * NUM_RANKS + cardId % NUM_RANKS);
+					}
+				}
+				int transformedHandCardId = handCardId < 0 ? -1
+						: suits[handCardId / NUM_RANKS] * NUM_RANKS + handCardId % NUM_RANKS;
+				long hash = canonicalizer.getCanonicalHash(state, handCardId);
+				int canonicalHandCardId = canonicalizer.getCanonicalState(transformed, transformedHandCardId, canonical);
+				long canonicalHash = canonical.getHash()
+						^ (canonicalHandCardId < 0 ? 0L : GridState.getCardKey(canonicalHandCardId));
+				numChecked++;
+				if (hash != canonicalizer.getCanonicalHash(transformed, transformedHandCardId) || hash != canonicalHash) {
+					if (mismatches++ < 10)
+						System.out.printf("Mismatch: %d cards, trial %d\n", numCards, trial);
+				}
+			}
+		System.out.printf("Transformed states checked: %d, mismatches: %d\n", numChecked, mismatches);
+		HashSet<Long> classes = new HashSet<Long>();
+		for (int cell = 0; cell < NUM_CELLS; cell++)
+			for (int cardId = 0; cardId < Card.NUM_CARDS; cardId++) {
+				state.clear();
+				state.place(cell, cardId);
+				classes.add(canonicalizer.getCanonicalHash(state));
+			}
+		System.out.printf("Classes of 1-card states: %d\n", classes.size());
+		if (mismatches > 0 || classes.size() != NUM_RANKS)
+			throw new IllegalStateException("Canonicalization is not invariant under symmetry");
+	}
+}
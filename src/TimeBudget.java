@@ -0,0 +1,186 @@
+/**
+ * TimeBudget - Allocates a player's remaining game time across its moves using {@link System#nanoTime()}.
+ *
+ * At the start of each move, the budget holds back a safety reserve, then allots the current move a share of the
+ * remaining time proportional to its weight among the moves still to come.  Weights grow with the number of
+ * candidate cells and peak in the mid-game, where decisions matter most; the forced last play gets no time.
+ * The reserve covers the per-move overhead the player cannot see (time charged by the game engine beyond the time
+ * measured between the start and end of each move), measured over the game and scaled by the moves left.
+ *
+ * Within a move, time may be divided evenly into slices (e.g. one per candidate play).  {@link #isExpired()} reads
+ * the clock only once every checkInterval calls, so it can be called on every iteration of a search loop.
+ *
+ * Typical use:
+ * <pre>
+ * budget.startMove(millisRemaining, numPlays);
+ * for (int i = 0; i &lt; numCandidates; i++) {
+ *     budget.startSlice(i, numCandidates);
+ *     while (!budget.isExpired())
+ *         simulate();
+ * }
+ * budget.endMove();
+ * </pre>
+ */
+public class TimeBudget {
+
+	/**
+	 * the default number of isExpired() calls per clock read
+	 */
+	public static final int DEFAULT_CHECK_INTERVAL = 16;
+	/**
+	 * the minimum nanoseconds held in reserve at the start of each move
+	 */
+	public static final long MIN_RESERVE_NANOS = 200000000L;
+	/**
+	 * the number of moves in a game
+	 */
+	public static final int NUM_MOVES = PokerSquares.SIZE * PokerSquares.SIZE;
+	private static final int MID_GAME_OFFSET = 4; // moves added to the move number when weighting; smaller values shift more time to the mid-game
+	private static final double[] WEIGHT_SUMS = new double[NUM_MOVES + 1]; // sums of weights of the moves from each move number on
+
+	static {
+		for (int k = NUM_MOVES - 1; k >= 0; k--)
+			WEIGHT_SUMS[k] = WEIGHT_SUMS[k + 1] + getWeight(k);
+	}
+
+	private final int checkInterval; // number of isExpired() calls per clock read
+	private int countdown; // isExpired() calls before the next clock read
+	private long moveStart; // nanoTime at the start of the current move
+	private long moveNanos; // nanoseconds allotted to the current move
+	private long sliceStart; // nanoTime from which slices of the current move are divided
+	private long sliceNanos; // nanoseconds divided into slices
+	private long deadline; // nanoTime at which the current slice expires
+	private long expectedNanosRemaining = -1; // game nanoseconds expected to remain at the start of the next move (-1 if unknown)
+	private long maxOverheadNanos; // maximum per-move overhead measured this game
+
+	/**
+	 * Create a time budget reading the clock every DEFAULT_CHECK_INTERVAL isExpired() calls.
+	 */
+	public TimeBudget() {
+		this(DEFAULT_CHECK_INTERVAL);
+	}
+
+	/**
+	 * Create a time budget reading the clock every checkInterval isExpired() calls.
+	 * @param checkInterval number of isExpired() calls per clock read
+	 */
+	public TimeBudget(int checkInterval) {
+		if (checkInterval < 1)
+			throw new IllegalArgumentException("Check interval must be positive: " + checkInterval);
+		this.checkInterval = checkInterval;
+	}
+
+	/**
+	 * Return the relative weight of the given move.
+	 * @param numPlays number of cards played before the move
+	 * @return relative weight of the move
+	 */
+	private static double getWeight(int numPlays) {
+		if (numPlays >= NUM_MOVES - 1) // forced last play
+			return 0;
+		return (double) (NUM_MOVES - numPlays) * (numPlays + MID_GAME_OFFSET);
+	}
+
+	/**
+	 * Forget the overhead measured in previous games.  Call at the start of each game (e.g. in init()).
+	 */
+	public void reset() {
+		expectedNanosRemaining = -1;
+		maxOverheadNanos = 0;
+	}
+
+	/**
+	 * Start a move, allotting it a share of the remaining game time, and return the nanoseconds allotted.
+	 * The whole move is a single slice until startSlice() is called.
+	 * @param millisRemaining milliseconds remaining in the game, as reported by the game engine
+	 * @param numPlays number of cards played before the move
+	 * @return nanoseconds allotted to the move
+	 */
+	public long startMove(long millisRemaining, int numPlays) {
+		moveStart = System.nanoTime();
+		long nanosRemaining = millisRemaining * 1000000L;
+		if (expectedNanosRemaining >= 0)
+			maxOverheadNanos = Math.max(maxOverheadNanos, expectedNanosRemaining - nanosRemaining);
+		expectedNanosRemaining = nanosRemaining;
+		int movesLeft = NUM_MOVES - numPlays;
+		long reserve = MIN_RESERVE_NANOS + maxOverheadNanos * movesLeft;
+		double weightSum = numPlays < NUM_MOVES ? WEIGHT_SUMS[numPlays] : 0;
+		long available = nanosRemaining - reserve;
+		moveNanos = available <= 0 || weightSum == 0 ? 0 : (long) (available * (getWeight(numPlays) / weightSum));
+		deadline = moveStart + moveNanos;
+		sliceStart = moveStart;
+		sliceNanos = moveNanos;
+		countdown = checkInterval;
+		return moveNanos;
+	}
+
+	/**
+	 * Divide only the rest of the current move's allotment into slices from now on, e.g. after part of the move was
+	 * spent on work that did not finish.  The move's deadline is unchanged.
+	 */
+	public void divideRemainder() {
+		long now = System.nanoTime();
+		sliceNanos = Math.max(0, moveStart + moveNanos - now);
+		sliceStart = now;
+		deadline = sliceStart + sliceNanos;
+		countdown = checkInterval;
+	}
+
+	/**
+	 * Start slice i of numSlices equal slices of the current move's allotment (or its remainder, after
+	 * divideRemainder()).
+	 * @param i slice index in [0, numSlices)
+	 * @param numSlices number of slices
+	 */
+	public void startSlice(int i, int numSlices) {
+		deadline = getSliceDeadline(i, numSlices);
+		countdown = checkInterval;
+	}
+
+	/**
+	 * Return the nanoTime at which slice i of numSlices equal slices of the current move's allotment (or its
+	 * remainder, after divideRemainder()) expires.  Unlike startSlice(), this does not change the budget, so threads
+	 * sharing a move can each read their own deadlines.
+	 * @param i slice index in [0, numSlices)
+	 * @param numSlices number of slices
+	 * @return the nanoTime at which the slice expires
+	 */
+	public long getSliceDeadline(int i, int numSlices) {
+		return sliceStart + sliceNanos / numSlices * (i + 1);
+	}
+
+	/**
+	 * Return whether or not the current slice has expired.  The clock is read only once every checkInterval calls,
+	 * so at least checkInterval - 1 calls after each startMove() or startSlice() return false.
+	 * @return whether or not the current slice has expired
+	 */
+	public boolean isExpired() {
+		if (--countdown > 0)
+			return false;
+		countdown = checkInterval;
+		return System.nanoTime() >= deadline;
+	}
+
+	/**
+	 * End the current move, recording the time used so that engine overhead can be measured at the next move.
+	 */
+	public void endMove() {
+		expectedNanosRemaining -= System.nanoTime() - moveStart;
+	}
+
+	/**
+	 * Return the nanoseconds allotted to the current move.
+	 * @return the nanoseconds allotted to the current move
+	 */
+	public long getMoveNanos() {
+		return moveNanos;
+	}
+
+	/**
+	 * Return the maximum per-move overhead measured this game.
+	 * @return the maximum per-move overhead in nanoseconds
+	 */
+	public long getMaxOverheadNanos() {
+		return maxOverheadNanos;
+	}
+}
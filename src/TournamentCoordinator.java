@@ -0,0 +1,456 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TournamentCoordinator - Plays a Poker Squares tournament in separate worker JVMs on the same machine.
+ *
+ * The (player x point system x seed range) space is split into shards of at most gamesPerShard games.  Each of
+ * numWorkers slots runs a {@link TournamentWorker} process, sends it shards over its standard input, and reads the
+ * shard results from its standard output.  A worker that crashes, exits, or exceeds its shard's time limit is killed
+ * and replaced, and only its current shard is retried (up to maxAttempts times).  Players are thus isolated from each
+ * other's garbage collection and runaway threads.  Shard totals are merged into the same normalized tournament
+ * scores as {@link PokerSquares#playTournament(ArrayList, ArrayList, int, long)} computes for the same seeds.
+ *
+ * With a checkpoint file, the total of each completed shard is recorded as it completes.  A tournament with the same
+ * players, point systems, games, seeds, shard size, deal corpus and charge mode resumes from the checkpoint, playing
+ * only the shards not yet completed.
+ *
+ * Workers play with the deal corpus and charge mode of {@link PokerSquares} at the start of the tournament, so that
+ * their games match those of a single-process tournament.
+ *
+ * Players are given as specifications (class names with optional int constructor arguments; see
+ * {@link TournamentWorker#newPlayer(String)}), since they must be created in the worker processes.
+ */
+public class TournamentCoordinator {
+
+	private static final long STARTUP_MILLIS = 30000L; // time allowed for worker startup in each shard's time limit
+	private static final int CHECKPOINT_MAGIC = 0x50535443; // "PSTC"
+
+	private final List<String> playerSpecs; // player specifications
+	private final List<PokerSquaresPointSystem> systems; // point systems
+	private int numWorkers = Runtime.getRuntime().availableProcessors(); // number of concurrent worker processes
+	private int gamesPerShard = 10; // maximum number of games per shard
+	private int maxAttempts = 3; // maximum number of attempts per shard
+	private List<String> jvmOptions = new ArrayList<String>(); // options of worker JVMs (e.g. -Xmx2g)
+	private File workerLog = null; // file to which worker standard error is appended (null to inherit)
+	private Path checkpoint = null; // file recording completed shards (null for none)
+	private List<String> workerOptions = new ArrayList<String>(); // TournamentWorker options of the current tournament
+
+	/**
+	 * A range of games of one player with one point system.
+	 */
+	private static class Shard {
+		final int id; // shard identification number
+		final int player; // player index
+		final int system; // point system index
+		final long firstSeed; // seed of the first game
+		final int numGames; // number of games
+		int attempts = 0; // number of attempts so far
+
+		Shard(int id, int player, int system, long firstSeed, int numGames) {
+			this.id = id;
+			this.player = player;
+			this.system = system;
+			this.firstSeed = firstSeed;
+			this.numGames = numGames;
+		}
+	}
+
+	/**
+	 * Create a coordinator of a tournament between the given players and point systems.
+	 * @param playerSpecs player specifications, e.g. "RandomPlayer" or "GreedyMCPlayer(2)"
+	 * @param systems point systems used to evaluate players in the tournament
+	 */
+	public TournamentCoordinator(List<String> playerSpecs, List<PokerSquaresPointSystem> systems) {
+		this.playerSpecs = new ArrayList<String>(playerSpecs);
+		this.systems = new ArrayList<PokerSquaresPointSystem>(systems);
+	}
+
+	/**
+	 * Set the number of concurrent worker processes.
+	 * @param numWorkers number of concurrent worker processes
+	 */
+	public void setNumWorkers(int numWorkers) {
+		this.numWorkers = numWorkers;
+	}
+
+	/**
+	 * Set the maximum number of games per shard.
+	 * @param gamesPerShard maximum number of games per shard
+	 */
+	public void setGamesPerShard(int gamesPerShard) {
+		this.gamesPerShard = gamesPerShard;
+	}
+
+	/**
+	 * Set the maximum number of attempts per shard.
+	 * @param maxAttempts maximum number of attempts per shard
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Set the options of worker JVMs.
+	 * @param jvmOptions options of worker JVMs (e.g. -Xmx2g)
+	 */
+	public void setJvmOptions(List<String> jvmOptions) {
+		this.jvmOptions = new ArrayList<String>(jvmOptions);
+	}
+
+	/**
+	 * Set the file to which the standard error of workers (including game output) is appended.
+	 * @param workerLog worker log file (null to inherit the coordinator's standard error)
+	 */
+	public void setWorkerLog(File workerLog) {
+		this.workerLog = workerLog;
+	}
+
+	/**
+	 * Set the checkpoint file recording completed shards, from which a tournament with the same configuration resumes.
+	 * @param checkpoint checkpoint file (null for none)
+	 */
+	public void setCheckpoint(Path checkpoint) {
+		this.checkpoint = checkpoint;
+	}
+
+	/**
+	 * Play the tournament and return the sum of the tournament scores of each player.
+	 * @param gamesPerSystem the number of games that will be played by each player with each point system
+	 * @param startSeed the start seed for the pseudorandom number generator that generates card deals
+	 * @return the sum of the tournament scores for each of the players
+	 * @throws IllegalStateException if a shard fails maxAttempts times
+	 */
+	public double[] playTournament(int gamesPerSystem, long startSeed) {
+		workerOptions = getWorkerOptions();
+		final String description = getDescription(gamesPerSystem, startSeed);
+		final Map<Integer, Long> completed = readCheckpoint(description); // total score of each completed shard
+		final long[][] totalScores = new long[systems.size()][playerSpecs.size()];
+		final LinkedBlockingQueue<Shard> queue = new LinkedBlockingQueue<Shard>();
+		int numShards = 0;
+		for (int s = 0; s < systems.size(); s++)
+			for (int p = 0; p < playerSpecs.size(); p++)
+				for (int g = 0; g < gamesPerSystem; g += gamesPerShard) {
+					Long total = completed.get(numShards);
+					if (total != null)
+						totalScores[s][p] += total;
+					else
+						queue.add(new Shard(numShards, p, s, startSeed + g, Math.min(gamesPerShard, gamesPerSystem - g)));
+					numShards++;
+				}
+		if (!completed.isEmpty())
+			System.out.printf("Resuming from checkpoint: %d of %d shards completed\n", completed.size(), numShards);
+		final AtomicInteger outstanding = new AtomicInteger(queue.size()); // shards not yet completed or failed
+		final List<String> failures = new ArrayList<String>();
+		final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor();
+		Thread[] slots = new Thread[Math.max(1, Math.min(numWorkers, queue.size()))];
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					runSlot(queue, outstanding, totalScores, completed, description, failures, watchdog);
+				}
+			}, "TournamentCoordinator-" + i);
+			slots[i].start();
+		}
+		try {
+			for (Thread slot : slots)
+				slot.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while playing tournament", e);
+		} finally {
+			watchdog.shutdownNow();
+		}
+		for (Shard shard = queue.poll(); shard != null; shard = queue.poll()) // left by slots that died
+			failures.add(describe(shard));
+		if (!failures.isEmpty())
+			throw new IllegalStateException("Tournament shards failed: " + failures);
+
+		String[] names = new String[playerSpecs.size()];
+		for (int p = 0; p < names.length; p++)
+			names[p] = TournamentWorker.newPlayer(playerSpecs.get(p)).getName();
+		double[] tournamentScores = new double[names.length];
+		for (int s = 0; s < systems.size(); s++) { // for each point system
+			System.out.println("Point System:\n" + systems.get(s));
+			double[] totals = new double[names.length];
+			for (int p = 0; p < names.length; p++) {
+				totals[p] = totalScores[s][p];
+				System.out.printf("Player \"%s\" total score: %d\n", names[p], totalScores[s][p]);
+			}
+			PokerSquares.addNormalizedScores(names, totals, tournamentScores);
+		}
+		PokerSquares.printTournamentScores(names, tournamentScores);
+		return tournamentScores;
+	}
+
+	/**
+	 * Return a description of the tournament configuration, identifying the checkpoints it may resume from.
+	 * @param gamesPerSystem the number of games played by each player with each point system
+	 * @param startSeed the start seed for the pseudorandom number generator that generates card deals
+	 * @return a description of the tournament configuration
+	 */
+	private String getDescription(int gamesPerSystem, long startSeed) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("players=").append(playerSpecs).append(";systems=");
+		for (PokerSquaresPointSystem system : systems)
+			sb.append('[').append(TournamentWorker.formatScoreTable(system)).append(']');
+		sb.append(";games=").append(gamesPerSystem).append(";seed=").append(startSeed).append(";shard=")
+				.append(gamesPerShard).append(";worker=").append(workerOptions);
+		return sb.toString();
+	}
+
+	/**
+	 * Return the TournamentWorker options passing on the current deal corpus and charge mode of {@link PokerSquares}.
+	 * @return the worker options
+	 */
+	private static List<String> getWorkerOptions() {
+		List<String> options = new ArrayList<String>();
+		options.add("-charge");
+		options.add(PokerSquares.getChargeMode().name());
+		DealCorpus corpus = PokerSquares.getDealCorpus();
+		if (corpus != null) {
+			options.add("-corpus");
+			options.add(corpus.getFile().toAbsolutePath().toString());
+		}
+		return options;
+	}
+
+	/**
+	 * Read the total score of each completed shard from the checkpoint of a tournament with the given description.
+	 * @param description description of the tournament configuration
+	 * @return the total score of each completed shard, by shard identification number
+	 */
+	private Map<Integer, Long> readCheckpoint(String description) {
+		Map<Integer, Long> completed = new LinkedHashMap<Integer, Long>();
+		if (checkpoint == null)
+			return completed;
+		DataInputStream in = CheckpointFile.read(checkpoint, CHECKPOINT_MAGIC, description);
+		if (in == null)
+			return completed;
+		try {
+			int numCompleted = in.readInt();
+			for (int i = 0; i < numCompleted; i++)
+				completed.put(in.readInt(), in.readLong());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return completed;
+	}
+
+	/**
+	 * Write the total score of each completed shard to the checkpoint.
+	 * @param description description of the tournament configuration
+	 * @param completed the total score of each completed shard, by shard identification number
+	 */
+	private void writeCheckpoint(String description, Map<Integer, Long> completed) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(completed.size());
+			for (Map.Entry<Integer, Long> entry : completed.entrySet()) {
+				out.writeInt(entry.getKey());
+				out.writeLong(entry.getValue());
+			}
+			out.flush();
+			CheckpointFile.write(checkpoint, CHECKPOINT_MAGIC, description, bytes.toByteArray());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Play shards from the queue in a worker process, replacing the worker whenever it fails, until all shards are
+	 * completed or failed.  A worker fails if it dies, exceeds its shard's time limit, or answers with anything but
+	 * the shard's well-formed result.  If the slot itself dies, its shard in progress is returned to the queue, so
+	 * that another slot plays it or the tournament reports it as failed.
+	 * @param queue shards to play
+	 * @param outstanding number of shards not yet completed or failed
+	 * @param totalScores total score of each point system and player, to which shard totals are added
+	 * @param completed total score of each completed shard, recorded in the checkpoint
+	 * @param description description of the tournament configuration
+	 * @param failures descriptions of failed shards
+	 * @param watchdog executor killing workers that exceed their shards' time limits
+	 */
+	private void runSlot(LinkedBlockingQueue<Shard> queue, AtomicInteger outstanding, long[][] totalScores,
+			Map<Integer, Long> completed, String description, List<String> failures,
+			ScheduledExecutorService watchdog) {
+		Process worker = null;
+		PrintStream requests = null;
+		BufferedReader results = null;
+		Shard shard = null; // shard in progress
+		try {
+			while (outstanding.get() > 0) {
+				shard = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (shard == null)
+					continue;
+				shard.attempts++;
+				Long total = null; // total score of the shard, or null if the worker failed
+				try {
+					if (worker == null) {
+						worker = startWorker();
+						requests = new PrintStream(worker.getOutputStream(), true);
+						results = new BufferedReader(new InputStreamReader(worker.getInputStream()));
+					}
+					final Process process = worker;
+					long limitMillis = STARTUP_MILLIS + PokerSquares.POINT_SYSTEM_MILLIS
+							+ shard.numGames * (PokerSquares.GAME_MILLIS + 1000L);
+					ScheduledFuture<?> kill = watchdog.schedule(new Runnable() {
+						@Override
+						public void run() {
+							process.destroyForcibly();
+						}
+					}, limitMillis, TimeUnit.MILLISECONDS);
+					requests.printf("SHARD %d %d %d %d %d\n", shard.id, shard.player, shard.system, shard.firstSeed,
+							shard.numGames);
+					String result = results.readLine();
+					kill.cancel(false);
+					total = parseResult(result, shard);
+				} catch (IOException e) {
+					total = null;
+				}
+				if (total != null) {
+					synchronized (totalScores) {
+						totalScores[shard.system][shard.player] += total;
+						completed.put(shard.id, total);
+						if (checkpoint != null) {
+							try {
+								writeCheckpoint(description, completed);
+							} catch (UncheckedIOException e) { // the next completed shard rewrites the checkpoint
+								System.err.println("Could not write checkpoint: " + e.getCause());
+							}
+						}
+					}
+					shard = null;
+					outstanding.decrementAndGet();
+					continue;
+				}
+				// the worker failed: replace it and retry only this shard
+				if (worker != null)
+					worker.destroyForcibly();
+				worker = null;
+				String shardDescription = describe(shard);
+				if (shard.attempts < maxAttempts) {
+					System.err.println("Worker failed; retrying " + shardDescription);
+					queue.add(shard);
+				}
+				else {
+					System.err.println("Worker failed; giving up on " + shardDescription);
+					synchronized (failures) {
+						failures.add(shardDescription);
+					}
+					outstanding.decrementAndGet();
+				}
+				shard = null;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			if (shard != null) // the slot died: leave its shard to another slot
+				queue.add(shard);
+			if (worker != null) {
+				requests.close(); // end of input stops the worker
+				try {
+					if (!worker.waitFor(10, TimeUnit.SECONDS))
+						worker.destroyForcibly();
+				} catch (InterruptedException e) {
+					worker.destroyForcibly();
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the total score of the given shard from a worker's result line.
+	 * @param result result line (null if the worker closed its output)
+	 * @param shard shard the worker was asked to play
+	 * @return the total score of the shard, or null if the line is not the shard's well-formed result
+	 */
+	private static Long parseResult(String result, Shard shard) {
+		if (result == null)
+			return null;
+		String[] fields = result.trim().split("\\s+");
+		if (fields.length != 4 || !fields[0].equals("RESULT"))
+			return null;
+		try {
+			return Integer.parseInt(fields[1]) == shard.id ? Long.valueOf(fields[2]) : null;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Return a description of the given shard for failure reports.
+	 * @param shard shard
+	 * @return a description of the shard
+	 */
+	private String describe(Shard shard) {
+		return String.format("shard %d (player %s, system %d, seeds %d-%d)", shard.id, playerSpecs.get(shard.player),
+				shard.system, shard.firstSeed, shard.firstSeed + shard.numGames - 1);
+	}
+
+	/**
+	 * Start a worker process with the tournament's worker options, players and point systems.
+	 * @return the worker process
+	 * @throws IOException if the process cannot be started
+	 */
+	private Process startWorker() throws IOException {
+		List<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.addAll(jvmOptions);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add("TournamentWorker");
+		command.addAll(workerOptions);
+		command.add(Integer.toString(playerSpecs.size()));
+		command.addAll(playerSpecs);
+		for (PokerSquaresPointSystem system : systems)
+			command.add(TournamentWorker.formatScoreTable(system));
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.redirectError(workerLog == null ? Redirect.INHERIT : Redirect.appendTo(workerLog));
+		return builder.start();
+	}
+
+	/**
+	 * Play a tournament between the given players under the Ameritish point system and a random point system.
+	 * @param args number of games per point system followed by player specifications
+	 */
+	public static void main(String[] args) {
+		if (args.length < 3) {
+			System.err.println("Usage: java TournamentCoordinator <games per system> <player spec> <player spec>...");
+			System.exit(1);
+		}
+		ArrayList<String> specs = new ArrayList<String>();
+		for (int i = 1; i < args.length; i++)
+			specs.add(args[i]);
+		ArrayList<PokerSquaresPointSystem> systems = new ArrayList<PokerSquaresPointSystem>();
+		PokerSquaresPointSystem.setSeed(0L);
+		systems.add(PokerSquaresPointSystem.getAmeritishPointSystem());
+		systems.add(PokerSquaresPointSystem.getRandomPointSystem());
+		TournamentCoordinator coordinator = new TournamentCoordinator(specs, systems);
+		coordinator.setWorkerLog(new File("tournament-workers.log"));
+		coordinator.setCheckpoint(Paths.get("tournament.checkpoint"));
+		coordinator.playTournament(Integer.parseInt(args[0]), 0L);
+	}
+}
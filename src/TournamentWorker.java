@@ -0,0 +1,140 @@
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.reflect.Constructor;
+import java.nio.file.Paths;
+import java.util.HashMap;
+
+/**
+ * TournamentWorker - A worker process playing tournament shards for a {@link TournamentCoordinator}.
+ *
+ * The worker is started with the player specifications and point system score tables of the tournament as arguments:
+ * <pre>
+ * java TournamentWorker [-charge WALL|CPU] [-corpus &lt;deal corpus file&gt;]
+ *     &lt;number of players&gt; &lt;player spec&gt;... &lt;score table&gt;...
+ * </pre>
+ * where the options set the {@link PokerSquares} charge mode and deal corpus, each player spec is a class name with optional int constructor arguments (e.g. GreedyMCPlayer(2)) and each
+ * score table is a comma-separated list of hand scores.  It then reads shard requests, one per line, from standard
+ * input:
+ * <pre>
+ * SHARD &lt;shard id&gt; &lt;player index&gt; &lt;system index&gt; &lt;first seed&gt; &lt;number of games&gt;
+ * </pre>
+ * plays the shard's games with {@link PokerSquares}, and writes one result line per shard to standard output:
+ * <pre>
+ * RESULT &lt;shard id&gt; &lt;total score&gt; &lt;number of games&gt;
+ * </pre>
+ * Everything else players and games print to standard output is redirected to standard error.  Each player is
+ * created once per point system and prepared for it once, then reused for all of its shards.
+ */
+public class TournamentWorker {
+
+	/**
+	 * Create a player from a player specification: a class name with optional int constructor arguments, e.g.
+	 * "RandomPlayer" or "GreedyMCPlayer(2)".
+	 * @param spec player specification
+	 * @return a new player
+	 * @throws IllegalArgumentException if the specification does not name a player class with a matching constructor
+	 */
+	public static PokerSquaresPlayer newPlayer(String spec) {
+		String className = spec.trim();
+		String[] argStrings = new String[0];
+		int paren = className.indexOf('(');
+		if (paren >= 0) {
+			String args = className.substring(paren + 1, className.lastIndexOf(')')).trim();
+			className = className.substring(0, paren).trim();
+			if (!args.isEmpty())
+				argStrings = args.split(",");
+		}
+		try {
+			Class<?>[] types = new Class<?>[argStrings.length];
+			Object[] args = new Object[argStrings.length];
+			for (int i = 0; i < args.length; i++) {
+				types[i] = int.class;
+				args[i] = Integer.parseInt(argStrings[i].trim());
+			}
+			Constructor<?> constructor = Class.forName(className).getConstructor(types);
+			return (PokerSquaresPlayer) constructor.newInstance(args);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			throw new IllegalArgumentException("Invalid player specification: " + spec, e);
+		}
+	}
+
+	/**
+	 * Format a point system's score table as a comma-separated list of hand scores.
+	 * @param system point system
+	 * @return the comma-separated hand scores
+	 */
+	public static String formatScoreTable(PokerSquaresPointSystem system) {
+		StringBuilder sb = new StringBuilder();
+		for (int points : system.getScoreTable()) {
+			if (sb.length() > 0)
+				sb.append(',');
+			sb.append(points);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Parse a point system from a comma-separated list of hand scores.
+	 * @param scoreTable comma-separated hand scores
+	 * @return the point system
+	 */
+	public static PokerSquaresPointSystem parseScoreTable(String scoreTable) {
+		String[] fields = scoreTable.split(",");
+		int[] scores = new int[fields.length];
+		for (int i = 0; i < scores.length; i++)
+			scores[i] = Integer.parseInt(fields[i].trim());
+		return new PokerSquaresPointSystem(scores);
+	}
+
+	/**
+	 * Serve shard requests from standard input until it is closed.
+	 * @param args options, number of players, player specifications, and score tables
+	 * @throws Exception if the protocol cannot be read or written
+	 */
+	public static void main(String[] args) throws Exception {
+		PrintStream protocol = System.out;
+		System.setOut(System.err); // keep the protocol stream free of game output
+		int arg = 0;
+		for (; args[arg].startsWith("-"); arg += 2) {
+			if (args[arg].equals("-charge"))
+				PokerSquares.setChargeMode(PlayTimer.Mode.valueOf(args[arg + 1]));
+			else if (args[arg].equals("-corpus"))
+				PokerSquares.setDealCorpus(new DealCorpus(Paths.get(args[arg + 1])));
+			else
+				throw new IllegalArgumentException("Unknown option: " + args[arg]);
+		}
+		int numPlayers = Integer.parseInt(args[arg]);
+		String[] specs = new String[numPlayers];
+		System.arraycopy(args, arg + 1, specs, 0, numPlayers);
+		PokerSquaresPointSystem[] systems = new PokerSquaresPointSystem[args.length - arg - 1 - numPlayers];
+		for (int i = 0; i < systems.length; i++)
+			systems[i] = parseScoreTable(args[arg + 1 + numPlayers + i]);
+
+		HashMap<Long, PokerSquares> games = new HashMap<Long, PokerSquares>(); // game of each player index and system index
+		BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+		String line;
+		while ((line = in.readLine()) != null) {
+			String[] fields = line.trim().split("\\s+");
+			if (!fields[0].equals("SHARD"))
+				throw new IllegalStateException("Unknown request: " + line);
+			long shardId = Long.parseLong(fields[1]);
+			int player = Integer.parseInt(fields[2]);
+			int system = Integer.parseInt(fields[3]);
+			long firstSeed = Long.parseLong(fields[4]);
+			int numGames = Integer.parseInt(fields[5]);
+			long key = (long) player << 32 | system;
+			PokerSquares game = games.get(key);
+			if (game == null) {
+				game = PlayerSession.prepare(newPlayer(specs[player]), systems[system],
+						PokerSquares.POINT_SYSTEM_MILLIS).newGame();
+				games.put(key, game);
+			}
+			long total = 0;
+			for (int score : game.playSequence(numGames, firstSeed, false))
+				total += score;
+			protocol.printf("RESULT %d %d %d\n", shardId, total, numGames);
+			protocol.flush();
+		}
+	}
+}
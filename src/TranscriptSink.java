@@ -0,0 +1,41 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * TranscriptSink - A game event sink that prints a move-by-move transcript of each game, as
+ * {@link PokerSquares} does in verbose mode.
+ */
+public class TranscriptSink implements GameEventSink {
+
+	private final PrintStream out; // transcript output
+	private final Card[][] grid = new Card[PokerSquares.SIZE][PokerSquares.SIZE]; // current game grid
+	private PokerSquaresPointSystem system; // current point system
+
+	/**
+	 * Create a transcript sink printing to the given stream.
+	 * @param out transcript output
+	 */
+	public TranscriptSink(PrintStream out) {
+		this.out = out;
+	}
+
+	@Override
+	public void gameStarted(long gameId, long seed, int systemId, PokerSquaresPointSystem system) {
+		this.system = system;
+		for (Card[] row : grid)
+			Arrays.fill(row, null);
+		out.printf("Game %d, seed %d\n", gameId, seed);
+	}
+
+	@Override
+	public void cardPlayed(int cardId, int cell, long nanos) {
+		grid[cell / PokerSquares.SIZE][cell % PokerSquares.SIZE] = Card.getCard(cardId);
+		system.printGrid(grid, out);
+		out.println();
+	}
+
+	@Override
+	public void gameEnded(int score) {
+		out.println(score);
+	}
+}
@@ -0,0 +1,155 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * TranspositionTable - A fixed-size, lock-free table of value estimates and visit counts of search states, keyed by
+ * 64-bit Zobrist hashes (see {@link GridState#getHash()}).
+ *
+ * Each entry is two words: the packed data (the value as a float, a visit count, and the age of the search that
+ * stored it) and the key exclusive-or the data.  A probe accepts an entry only if its two words agree with the probed
+ * key, so an entry torn by concurrent stores reads as a miss, and neither probes nor stores take locks.  Keys map to
+ * buckets of BUCKET_SIZE entries.  A store replaces the bucket's entry with the same key, or else an empty entry, or
+ * else the entry stored by the oldest search, breaking ties by fewest visits.  Players call {@link #nextAge()} at each
+ * move, so entries of earlier moves of a game remain available until newer entries need their places.
+ *
+ * Typical use, where key is the hash of a search state:
+ * <pre>
+ * long entry = table.probe(key);
+ * if (entry != TranspositionTable.MISS)
+ *     seed(TranspositionTable.getValue(entry), TranspositionTable.getVisits(entry));
+ * ...
+ * table.store(key, averageScore, numVisits);
+ * </pre>
+ */
+public class TranspositionTable {
+
+	/**
+	 * the number of entries of each bucket
+	 */
+	public static final int BUCKET_SIZE = 4;
+	/**
+	 * the result of probing a key with no entry
+	 */
+	public static final long MISS = 0L;
+	/**
+	 * the maximum visit count of an entry; larger counts are stored as MAX_VISITS
+	 */
+	public static final int MAX_VISITS = (1 << 24) - 1;
+	private static final int AGE_BITS = 8; // bits of the age of an entry
+	private static final int AGE_MASK = (1 << AGE_BITS) - 1; // mask of the age of an entry
+
+	private final AtomicLongArray words; // two words per entry: the key exclusive-or the data, then the data
+	private final int bucketMask; // mask of the bucket number of a key
+	private volatile int age = 1; // age of the current search, in [1, AGE_MASK]
+
+	/**
+	 * Create an empty table with 2^log2Entries entries (16 bytes each).
+	 * @param log2Entries base-2 logarithm of the number of entries, at least 2
+	 */
+	public TranspositionTable(int log2Entries) {
+		if (log2Entries < 2 || log2Entries > 29)
+			throw new IllegalArgumentException("Base-2 logarithm of the number of entries must be in [2, 29]: "
+					+ log2Entries);
+		words = new AtomicLongArray(2 << log2Entries);
+		bucketMask = (1 << log2Entries) / BUCKET_SIZE - 1;
+	}
+
+	/**
+	 * Remove all entries.  Not safe while other threads probe or store.
+	 */
+	public void clear() {
+		for (int i = 0; i < words.length(); i++)
+			words.set(i, 0L);
+		age = 1;
+	}
+
+	/**
+	 * Start a new search (e.g. a new move), so that entries of earlier searches are replaced first.
+	 */
+	public void nextAge() {
+		age = age % AGE_MASK + 1;
+	}
+
+	/**
+	 * Return the entry of the given key.
+	 * @param key state hash
+	 * @return the entry of the key, or MISS
+	 */
+	public long probe(long key) {
+		int first = getFirstEntry(key);
+		for (int i = first; i < first + BUCKET_SIZE; i++) {
+			long data = words.get(2 * i + 1);
+			if (data != MISS && (words.get(2 * i) ^ data) == key)
+				return data;
+		}
+		return MISS;
+	}
+
+	/**
+	 * Return the value estimate of an entry.
+	 * @param entry entry returned by probe() (not MISS)
+	 * @return the value estimate of the entry
+	 */
+	public static double getValue(long entry) {
+		return Float.intBitsToFloat((int) (entry >>> 32));
+	}
+
+	/**
+	 * Return the visit count of an entry.
+	 * @param entry entry returned by probe() (not MISS)
+	 * @return the visit count of the entry
+	 */
+	public static int getVisits(long entry) {
+		return (int) entry >>> AGE_BITS;
+	}
+
+	/**
+	 * Store the value estimate and visit count of the given key, replacing any previous entry of the key.
+	 * @param key state hash
+	 * @param value value estimate (stored as a float)
+	 * @param visits visit count of the estimate (entries with no visits are not stored)
+	 */
+	public void store(long key, double value, int visits) {
+		if (visits <= 0)
+			return;
+		int currentAge = age;
+		long data = (long) Float.floatToRawIntBits((float) value) << 32
+				| (long) Math.min(visits, MAX_VISITS) << AGE_BITS | currentAge;
+		int first = getFirstEntry(key);
+		int victim = first;
+		int victimAge = -1; // searches since the victim was stored (AGE_MASK + 1 for an empty entry)
+		int victimVisits = 0;
+		for (int i = first; i < first + BUCKET_SIZE; i++) {
+			long entryData = words.get(2 * i + 1);
+			if (entryData != MISS && (words.get(2 * i) ^ entryData) == key) { // same key
+				victim = i;
+				break;
+			}
+			int entryAge = entryData == MISS ? AGE_MASK + 1 : (currentAge - (int) entryData) & AGE_MASK;
+			int entryVisits = getVisits(entryData);
+			if (entryAge > victimAge || entryAge == victimAge && entryVisits < victimVisits) {
+				victim = i;
+				victimAge = entryAge;
+				victimVisits = entryVisits;
+			}
+		}
+		words.set(2 * victim, key ^ data);
+		words.set(2 * victim + 1, data);
+	}
+
+	/**
+	 * Return the number of entries.
+	 * @return the number of entries
+	 */
+	public int getNumEntries() {
+		return words.length() / 2;
+	}
+
+	/**
+	 * Return the first entry of the bucket of the given key.
+	 * @param key state hash
+	 * @return the index of the first entry of the key's bucket
+	 */
+	private int getFirstEntry(long key) {
+		return ((int) (key ^ key >>> 32) & bucketMask) * BUCKET_SIZE;
+	}
+}